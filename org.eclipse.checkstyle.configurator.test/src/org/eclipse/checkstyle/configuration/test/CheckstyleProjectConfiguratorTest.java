@@ -4,22 +4,40 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import net.sf.eclipsecs.core.config.ICheckConfiguration;
 import net.sf.eclipsecs.core.config.ResolvableProperty;
+import net.sf.eclipsecs.core.projectconfig.FileMatchPattern;
 import net.sf.eclipsecs.core.projectconfig.IProjectConfiguration;
 import net.sf.eclipsecs.core.projectconfig.ProjectConfigurationFactory;
 import net.sf.eclipsecs.core.projectconfig.ProjectConfigurationWorkingCopy;
 import net.sf.eclipsecs.core.util.CheckstylePluginException;
 
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Plugin;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.eclipse.checkstyle.configurator.Activator;
+import org.eclipse.checkstyle.configurator.PreferenceConstants;
+import org.eclipse.checkstyle.configurator.api.CheckstyleConfigurationRequest;
+import org.eclipse.checkstyle.configurator.impl.CheckstyleConfigurationQueue;
 import org.eclipse.checkstyle.configurator.impl.CheckstyleProjectConfigurator;
+import org.eclipse.configurator.metrics.Metrics;
+import org.eclipse.configurator.metrics.MetricsRegistry;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -64,6 +82,77 @@ public class CheckstyleProjectConfiguratorTest {
         }
     }
 
+    @Test
+    public void scopedFileSetTest() {
+        final CheckstyleProjectConfigurator checkstyleProjectConfigurator = new CheckstyleProjectConfigurator();
+        final IProject project = createProject(PROJECT_NAME);
+        try {
+            final String basedir = project.getLocation().toOSString();
+            final List<String> compileSourceRoots = new ArrayList<String>();
+            compileSourceRoots.add(basedir + "/src/main/java");
+            compileSourceRoots.add(basedir + "/target/generated-sources/annotations");
+            final List<String> testSourceRoots = new ArrayList<String>();
+            testSourceRoots.add(basedir + "/src/test/java");
+            final CheckstyleConfigurationRequest request = new CheckstyleConfigurationRequest(project, null,
+                    new Properties(), compileSourceRoots, "config test", testSourceRoots, basedir + "/target");
+            final ProjectConfigurationWorkingCopy workingCopy = new ProjectConfigurationWorkingCopy(
+                    ProjectConfigurationFactory.getConfiguration(project));
+            final URL ruleSet = Activator.getDefault().getBundle().getResource("resource/rules");
+            final ICheckConfiguration checkConfig = checkstyleProjectConfigurator
+                    .createOrUpdateLocalCheckConfiguration(project, workingCopy, ruleSet, "config test");
+            checkstyleProjectConfigurator.removeAndAddNewFileSet(request, workingCopy, checkConfig);
+            final List<FileMatchPattern> patterns = workingCopy.getFileSets().get(0).getFileMatchPatterns();
+            Assert.assertEquals(1, patterns.size());
+            Assert.assertEquals("^\\Qsrc/main/java\\E/.*\\.java$", patterns.get(0).getMatchPattern());
+            Assert.assertTrue(patterns.get(0).isMatch("src/main/java/org/Test.java"));
+            Assert.assertFalse(patterns.get(0).isMatch("module/src/main/java/org/Test.java"));
+
+            Activator.getDefault().getPreferenceStore().setValue(PreferenceConstants.INCLUDE_TEST_SOURCES, true);
+            checkstyleProjectConfigurator.removeAndAddNewFileSet(request, workingCopy, checkConfig);
+            Assert.assertEquals(2, workingCopy.getFileSets().get(0).getFileMatchPatterns().size());
+        } catch (final CheckstylePluginException e) {
+            throw new RuntimeException(e);
+        } finally {
+            Activator.getDefault().getPreferenceStore().setToDefault(PreferenceConstants.INCLUDE_TEST_SOURCES);
+            deleteProject(project);
+        }
+    }
+
+    @Test
+    public void deltaFileSetTest() {
+        final CheckstyleProjectConfigurator checkstyleProjectConfigurator = new CheckstyleProjectConfigurator();
+        final IProject project = createProject(PROJECT_NAME);
+        try {
+            final String basedir = project.getLocation().toOSString();
+            final List<String> compileSourceRoots = new ArrayList<String>();
+            compileSourceRoots.add(basedir + "/src/main/java");
+            final CheckstyleConfigurationRequest request = new CheckstyleConfigurationRequest(project, null,
+                    new Properties(), compileSourceRoots, "config test");
+            final ProjectConfigurationWorkingCopy workingCopy = new ProjectConfigurationWorkingCopy(
+                    ProjectConfigurationFactory.getConfiguration(project));
+            final URL ruleSet = Activator.getDefault().getBundle().getResource("resource/rules");
+            final ICheckConfiguration checkConfig = checkstyleProjectConfigurator
+                    .createOrUpdateLocalCheckConfiguration(project, workingCopy, ruleSet, "config test");
+            final SortedSet<String> changedFiles = new TreeSet<String>();
+            changedFiles.add("pom.xml");
+            changedFiles.add("src/main/java/org/Test.java");
+            changedFiles.add("src/test/java/org/TestTest.java");
+            checkstyleProjectConfigurator.removeAndAddNewFileSet(request, changedFiles, workingCopy, checkConfig);
+            final List<FileMatchPattern> patterns = workingCopy.getFileSets().get(0).getFileMatchPatterns();
+            Assert.assertEquals(1, patterns.size());
+            Assert.assertTrue(patterns.get(0).isMatch("src/main/java/org/Test.java"));
+            Assert.assertFalse(patterns.get(0).isMatch("src/main/java/org/Other.java"));
+
+            checkstyleProjectConfigurator.removeAndAddNewFileSet(request, new TreeSet<String>(), workingCopy,
+                    checkConfig);
+            Assert.assertTrue(workingCopy.getFileSets().get(0).getFileMatchPatterns().isEmpty());
+        } catch (final CheckstylePluginException e) {
+            throw new RuntimeException(e);
+        } finally {
+            deleteProject(project);
+        }
+    }
+
     @Test
     public void addCustomPropertiesTest() {
         final CheckstyleProjectConfigurator checkstyleProjectConfigurator = new CheckstyleProjectConfigurator();
@@ -120,6 +209,373 @@ public class CheckstyleProjectConfiguratorTest {
         }
     }
 
+    @Test
+    public void updateProjectConfigurationTest() {
+        final CheckstyleProjectConfigurator checkstyleProjectConfigurator = new CheckstyleProjectConfigurator();
+        final IProject project = createProject(PROJECT_NAME);
+        try {
+            final List<String> compileSourceRoots = new ArrayList<String>();
+            compileSourceRoots.add(".");
+            final URL ruleSet = Activator.getDefault().getBundle().getResource("resource/rules");
+            final Properties properties = new Properties();
+            properties.setProperty("test1", "test1");
+            Assert.assertTrue(checkstyleProjectConfigurator.updateProjectConfiguration(project, ruleSet, properties,
+                    compileSourceRoots, "config test", new NullProgressMonitor()));
+            Assert.assertFalse(checkstyleProjectConfigurator.updateProjectConfiguration(project, ruleSet, properties,
+                    compileSourceRoots, "config test", new NullProgressMonitor()));
+            properties.setProperty("test1", "test2");
+            Assert.assertTrue(checkstyleProjectConfigurator.updateProjectConfiguration(project, ruleSet, properties,
+                    compileSourceRoots, "config test", new NullProgressMonitor()));
+        } catch (final CoreException e) {
+            throw new RuntimeException(e);
+        } finally {
+            deleteProject(project);
+        }
+    }
+
+    @Test
+    public void updateProjectConfigurationsTest() {
+        final CheckstyleProjectConfigurator checkstyleProjectConfigurator = new CheckstyleProjectConfigurator();
+        final IProject project1 = createProject(PROJECT_NAME + "1");
+        final IProject project2 = createProject(PROJECT_NAME + "2");
+        try {
+            final List<String> compileSourceRoots = new ArrayList<String>();
+            compileSourceRoots.add(".");
+            final URL ruleSet = Activator.getDefault().getBundle().getResource("resource/rules");
+            final Properties properties = new Properties();
+            final List<CheckstyleConfigurationRequest> requests = new ArrayList<CheckstyleConfigurationRequest>();
+            requests.add(new CheckstyleConfigurationRequest(project1, ruleSet, properties, compileSourceRoots,
+                    "config test"));
+            requests.add(new CheckstyleConfigurationRequest(project2, ruleSet, properties, compileSourceRoots,
+                    "config test"));
+            // the last request of a project wins
+            requests.add(new CheckstyleConfigurationRequest(project1, ruleSet, properties, compileSourceRoots,
+                    "config test"));
+            final MetricsRegistry registry = Metrics.getRegistry();
+            registry.reset();
+            Assert.assertEquals(2, checkstyleProjectConfigurator.updateProjectConfigurations(requests,
+                    new NullProgressMonitor()).size());
+            // each project configuration is stored once
+            Assert.assertEquals(2, registry.getPhase(Metrics.CHECKSTYLE_STORE).getCount());
+            Assert.assertEquals(1, registry.getPhase(Metrics.CHECKSTYLE_UPDATE).getCount());
+            Assert.assertEquals(0, checkstyleProjectConfigurator.updateProjectConfigurations(requests,
+                    new NullProgressMonitor()).size());
+            Assert.assertEquals(4, registry.getPhase(Metrics.CHECKSTYLE_STORE).getCount());
+            final ICheckConfiguration checkConfig = ProjectConfigurationFactory.getConfiguration(project2)
+                    .getLocalCheckConfigurations().get(0);
+            Assert.assertEquals(checkConfig.getName(), "config test");
+        } catch (final CoreException e) {
+            throw new RuntimeException(e);
+        } catch (final CheckstylePluginException e) {
+            throw new RuntimeException(e);
+        } finally {
+            deleteProject(project1);
+            deleteProject(project2);
+        }
+    }
+
+    @Test
+    public void updateSharedProjectConfigurationsTest() {
+        final CheckstyleProjectConfigurator checkstyleProjectConfigurator = new CheckstyleProjectConfigurator();
+        final List<IProject> projects = new ArrayList<IProject>();
+        for (int i = 0; i < 3; i++) {
+            projects.add(createProject(PROJECT_NAME + ".shared." + i));
+        }
+        Activator.getDefault().getPreferenceStore().setValue(PreferenceConstants.SHARE_GLOBAL_CONFIGURATIONS, true);
+        try {
+            final List<String> compileSourceRoots = new ArrayList<String>();
+            compileSourceRoots.add(".");
+            final URL ruleSet = Activator.getDefault().getBundle().getResource("resource/rules");
+            final Properties properties = new Properties();
+            properties.setProperty("test1", "batch");
+            final List<CheckstyleConfigurationRequest> requests = new ArrayList<CheckstyleConfigurationRequest>();
+            for (final IProject project : projects) {
+                requests.add(new CheckstyleConfigurationRequest(project, ruleSet, properties, compileSourceRoots,
+                        "config test"));
+            }
+            final MetricsRegistry registry = Metrics.getRegistry();
+            registry.reset();
+            Assert.assertEquals(3, checkstyleProjectConfigurator.updateProjectConfigurations(requests,
+                    new NullProgressMonitor()).size());
+            // the global working set is stored once, then each project configuration once
+            Assert.assertEquals(4, registry.getPhase(Metrics.CHECKSTYLE_STORE).getCount());
+            final ICheckConfiguration checkConfig = ProjectConfigurationFactory.getConfiguration(projects.get(0))
+                    .getFileSets().get(0).getCheckConfig();
+            Assert.assertTrue(checkConfig.isGlobal());
+            for (final IProject project : projects) {
+                Assert.assertEquals(checkConfig.getName(), ProjectConfigurationFactory.getConfiguration(project)
+                        .getFileSets().get(0).getCheckConfig().getName());
+            }
+        } catch (final CoreException e) {
+            throw new RuntimeException(e);
+        } catch (final CheckstylePluginException e) {
+            throw new RuntimeException(e);
+        } finally {
+            Activator.getDefault().getPreferenceStore().setToDefault(PreferenceConstants.SHARE_GLOBAL_CONFIGURATIONS);
+            for (final IProject project : projects) {
+                deleteProject(project);
+            }
+        }
+    }
+
+    @Test
+    public void requestProjectConfigurationTest() throws Exception {
+        final CheckstyleProjectConfigurator checkstyleProjectConfigurator = new CheckstyleProjectConfigurator();
+        final IProject project1 = createProject(PROJECT_NAME + "1");
+        final IProject project2 = createProject(PROJECT_NAME + "2");
+        try {
+            final List<String> compileSourceRoots = new ArrayList<String>();
+            compileSourceRoots.add(".");
+            final URL ruleSet = Activator.getDefault().getBundle().getResource("resource/rules");
+            final MetricsRegistry registry = Metrics.getRegistry();
+            registry.reset();
+            checkstyleProjectConfigurator.requestProjectConfiguration(new CheckstyleConfigurationRequest(project1,
+                    ruleSet, new Properties(), compileSourceRoots, "config test"));
+            checkstyleProjectConfigurator.requestProjectConfiguration(new CheckstyleConfigurationRequest(project2,
+                    ruleSet, new Properties(), compileSourceRoots, "config test"));
+            Job.getJobManager().join(CheckstyleConfigurationQueue.class, new NullProgressMonitor());
+            // both requests are applied in a single batch
+            Assert.assertEquals(1, registry.getPhase(Metrics.CHECKSTYLE_UPDATE).getCount());
+            Assert.assertEquals(2, registry.getPhase(Metrics.CHECKSTYLE_STORE).getCount());
+            Assert.assertEquals(1, ProjectConfigurationFactory.getConfiguration(project2).getFileSets().size());
+        } finally {
+            deleteProject(project1);
+            deleteProject(project2);
+        }
+    }
+
+    @Test
+    public void metricsTest() {
+        final CheckstyleProjectConfigurator checkstyleProjectConfigurator = new CheckstyleProjectConfigurator();
+        final IProject project = createProject(PROJECT_NAME);
+        final MetricsRegistry registry = Metrics.getRegistry();
+        try {
+            final List<String> compileSourceRoots = new ArrayList<String>();
+            compileSourceRoots.add(".");
+            final URL ruleSet = Activator.getDefault().getBundle().getResource("resource/rules");
+            final Properties properties = new Properties();
+            registry.reset();
+            checkstyleProjectConfigurator.updateProjectConfiguration(project, ruleSet, properties,
+                    compileSourceRoots, "config test", new NullProgressMonitor());
+            checkstyleProjectConfigurator.updateProjectConfiguration(project, ruleSet, properties,
+                    compileSourceRoots, "config test", new NullProgressMonitor());
+            Assert.assertEquals(2, registry.getPhase(Metrics.CHECKSTYLE_UPDATE).getCount());
+            Assert.assertEquals(2, registry.getPhase(Metrics.CHECKSTYLE_STORE).getCount());
+            // the second update changed nothing
+            Assert.assertEquals(1, registry.getRebuilds(Metrics.CHECKSTYLE_BUILDER));
+            Assert.assertTrue(registry.getBytes(Metrics.CHECKSTYLE_RULESET_BYTES) > 0);
+            Assert.assertTrue(registry.report().contains(Metrics.CHECKSTYLE_UPDATE));
+        } catch (final CoreException e) {
+            throw new RuntimeException(e);
+        } finally {
+            deleteProject(project);
+        }
+    }
+
+    @Test
+    public void concurrentUpdateProjectConfigurationTest() throws Exception {
+        final CheckstyleProjectConfigurator checkstyleProjectConfigurator = new CheckstyleProjectConfigurator();
+        final List<IProject> projects = new ArrayList<IProject>();
+        for (int i = 0; i < 10; i++) {
+            projects.add(createProject(PROJECT_NAME + "." + i));
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            final List<String> compileSourceRoots = new ArrayList<String>();
+            compileSourceRoots.add(".");
+            final URL ruleSet = Activator.getDefault().getBundle().getResource("resource/rules");
+            final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 100; i++) {
+                final IProject project = projects.get(i % projects.size());
+                final Properties properties = new Properties();
+                properties.setProperty("test1", "test" + i);
+                results.add(executor.submit(new Callable<Boolean>() {
+                    public Boolean call() throws CoreException {
+                        return checkstyleProjectConfigurator.updateProjectConfiguration(project, ruleSet,
+                                properties, compileSourceRoots, "config test", new NullProgressMonitor());
+                    }
+                }));
+            }
+            for (final Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+            for (final IProject project : projects) {
+                final IProjectConfiguration projectConfig = ProjectConfigurationFactory.getConfiguration(project);
+                Assert.assertEquals(1, projectConfig.getLocalCheckConfigurations().size());
+                Assert.assertEquals(1, projectConfig.getFileSets().size());
+            }
+        } finally {
+            executor.shutdown();
+            for (final IProject project : projects) {
+                deleteProject(project);
+            }
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void updateProjectConfigurationUnderRuleTest() throws Exception {
+        final CheckstyleProjectConfigurator checkstyleProjectConfigurator = new CheckstyleProjectConfigurator();
+        final IProject project = createProject(PROJECT_NAME);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<String> compileSourceRoots = new ArrayList<String>();
+            compileSourceRoots.add(".");
+            final URL ruleSet = Activator.getDefault().getBundle().getResource("resource/rules");
+            final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 20; i++) {
+                final boolean underRule = i % 2 == 0;
+                final Properties properties = new Properties();
+                properties.setProperty("test1", "test" + i);
+                results.add(executor.submit(new Callable<Boolean>() {
+                    public Boolean call() throws CoreException {
+                        final boolean[] scheduled = new boolean[1];
+                        final IWorkspaceRunnable update = new IWorkspaceRunnable() {
+                            public void run(final IProgressMonitor monitor) throws CoreException {
+                                scheduled[0] = checkstyleProjectConfigurator.updateProjectConfiguration(project,
+                                        ruleSet, properties, compileSourceRoots, "config test", monitor);
+                            }
+                        };
+                        if (underRule) {
+                            // m2e configures projects while holding the workspace rule
+                            final IWorkspace workspace = ResourcesPlugin.getWorkspace();
+                            workspace.run(update, workspace.getRoot(), IWorkspace.AVOID_UPDATE,
+                                    new NullProgressMonitor());
+                        } else {
+                            update.run(new NullProgressMonitor());
+                        }
+                        return scheduled[0];
+                    }
+                }));
+            }
+            for (final Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+            Assert.assertEquals(1, ProjectConfigurationFactory.getConfiguration(project).getFileSets().size());
+        } finally {
+            executor.shutdown();
+            deleteProject(project);
+        }
+    }
+
+    @Test
+    public void shareGlobalConfigurationsTest() {
+        final CheckstyleProjectConfigurator checkstyleProjectConfigurator = new CheckstyleProjectConfigurator();
+        final IProject project1 = createProject(PROJECT_NAME + "1");
+        final IProject project2 = createProject(PROJECT_NAME + "2");
+        Activator.getDefault().getPreferenceStore().setValue(PreferenceConstants.SHARE_GLOBAL_CONFIGURATIONS, true);
+        try {
+            final List<String> compileSourceRoots = new ArrayList<String>();
+            compileSourceRoots.add(".");
+            final URL ruleSet = Activator.getDefault().getBundle().getResource("resource/rules");
+            final Properties properties = new Properties();
+            properties.setProperty("test1", "test1");
+            checkstyleProjectConfigurator.updateProjectConfiguration(project1, ruleSet, properties,
+                    compileSourceRoots, "config test", new NullProgressMonitor());
+            checkstyleProjectConfigurator.updateProjectConfiguration(project2, ruleSet, properties,
+                    compileSourceRoots, "config test", new NullProgressMonitor());
+            final IProjectConfiguration projectConfig1 = ProjectConfigurationFactory.getConfiguration(project1);
+            final IProjectConfiguration projectConfig2 = ProjectConfigurationFactory.getConfiguration(project2);
+            Assert.assertTrue(projectConfig1.getLocalCheckConfigurations().isEmpty());
+            final ICheckConfiguration checkConfig = projectConfig1.getFileSets().get(0).getCheckConfig();
+            Assert.assertTrue(checkConfig.isGlobal());
+            Assert.assertEquals(checkConfig.getName(), projectConfig2.getFileSets().get(0).getCheckConfig()
+                    .getName());
+        } catch (final CoreException e) {
+            throw new RuntimeException(e);
+        } catch (final CheckstylePluginException e) {
+            throw new RuntimeException(e);
+        } finally {
+            Activator.getDefault().getPreferenceStore().setToDefault(PreferenceConstants.SHARE_GLOBAL_CONFIGURATIONS);
+            deleteProject(project1);
+            deleteProject(project2);
+        }
+    }
+
+    @Test
+    public void replaceLocalConfigurationTest() {
+        final CheckstyleProjectConfigurator checkstyleProjectConfigurator = new CheckstyleProjectConfigurator();
+        final IProject project = createProject(PROJECT_NAME);
+        try {
+            final List<String> compileSourceRoots = new ArrayList<String>();
+            compileSourceRoots.add(".");
+            final URL ruleSet = Activator.getDefault().getBundle().getResource("resource/rules");
+            checkstyleProjectConfigurator.updateProjectConfiguration(project, ruleSet, new Properties(),
+                    compileSourceRoots, "config test", new NullProgressMonitor());
+            Assert.assertEquals(1, ProjectConfigurationFactory.getConfiguration(project)
+                    .getLocalCheckConfigurations().size());
+
+            // the file set still uses the local configuration when it is replaced
+            Activator.getDefault().getPreferenceStore().setValue(PreferenceConstants.SHARE_GLOBAL_CONFIGURATIONS,
+                    true);
+            checkstyleProjectConfigurator.updateProjectConfiguration(project, ruleSet, new Properties(),
+                    compileSourceRoots, "config test", new NullProgressMonitor());
+            IProjectConfiguration projectConfig = ProjectConfigurationFactory.getConfiguration(project);
+            Assert.assertTrue(projectConfig.getLocalCheckConfigurations().isEmpty());
+            Assert.assertEquals(1, projectConfig.getFileSets().size());
+            Assert.assertTrue(projectConfig.getFileSets().get(0).getCheckConfig().isGlobal());
+
+            Activator.getDefault().getPreferenceStore().setToDefault(PreferenceConstants.SHARE_GLOBAL_CONFIGURATIONS);
+            checkstyleProjectConfigurator.updateProjectConfiguration(project, ruleSet, new Properties(),
+                    compileSourceRoots, "config test", new NullProgressMonitor());
+            checkstyleProjectConfigurator.updateProjectConfiguration(project, null, new Properties(),
+                    compileSourceRoots, "config test", new NullProgressMonitor());
+            projectConfig = ProjectConfigurationFactory.getConfiguration(project);
+            Assert.assertTrue(projectConfig.getLocalCheckConfigurations().isEmpty());
+            Assert.assertTrue(projectConfig.getFileSets().isEmpty());
+        } catch (final CoreException e) {
+            throw new RuntimeException(e);
+        } catch (final CheckstylePluginException e) {
+            throw new RuntimeException(e);
+        } finally {
+            Activator.getDefault().getPreferenceStore().setToDefault(PreferenceConstants.SHARE_GLOBAL_CONFIGURATIONS);
+            deleteProject(project);
+        }
+    }
+
+    @Test
+    public void pluginChangedTest() {
+        final CheckstyleProjectConfigurator checkstyleProjectConfigurator = new CheckstyleProjectConfigurator();
+        final Plugin old = createPlugin("2.5", "1");
+        Assert.assertTrue(checkstyleProjectConfigurator.pluginChanged(old, null));
+        Assert.assertTrue(checkstyleProjectConfigurator.pluginChanged(null, old));
+        Assert.assertFalse(checkstyleProjectConfigurator.pluginChanged(null, null));
+        Assert.assertFalse(checkstyleProjectConfigurator.pluginChanged(createPlugin("2.5", "1"), old));
+        Assert.assertTrue(checkstyleProjectConfigurator.pluginChanged(createPlugin("2.5", "2"), old));
+        Assert.assertTrue(checkstyleProjectConfigurator.pluginChanged(createPlugin("2.6", "1"), old));
+
+        // configLocation resolved from another version of the ruleset artifact
+        final Plugin oldRuleSet = createPlugin("2.5", "1");
+        oldRuleSet.addDependency(createDependency("1.2"));
+        final Plugin newRuleSet = createPlugin("2.5", "1");
+        newRuleSet.addDependency(createDependency("1.3"));
+        Assert.assertTrue(checkstyleProjectConfigurator.pluginChanged(oldRuleSet, old));
+        Assert.assertTrue(checkstyleProjectConfigurator.pluginChanged(newRuleSet, oldRuleSet));
+        final Plugin sameRuleSet = createPlugin("2.5", "1");
+        sameRuleSet.addDependency(createDependency("1.2"));
+        Assert.assertFalse(checkstyleProjectConfigurator.pluginChanged(sameRuleSet, oldRuleSet));
+    }
+
+    protected Dependency createDependency(final String version) {
+        final Dependency dependency = new Dependency();
+        dependency.setGroupId("com.company");
+        dependency.setArtifactId("company-checkstyle");
+        dependency.setVersion(version);
+        return dependency;
+    }
+
+    protected Plugin createPlugin(final String version, final String propertyExpansion) {
+        final Plugin plugin = new Plugin();
+        plugin.setGroupId("org.apache.maven.plugins");
+        plugin.setArtifactId("maven-checkstyle-plugin");
+        plugin.setVersion(version);
+        final Xpp3Dom configuration = new Xpp3Dom("configuration");
+        final Xpp3Dom child = new Xpp3Dom("propertyExpansion");
+        child.setValue("test1=" + propertyExpansion);
+        configuration.addChild(child);
+        plugin.setConfiguration(configuration);
+        return plugin;
+    }
+
     protected void deleteProject(final IProject project) {
         try {
             project.close(new NullProgressMonitor());
@@ -1,6 +1,11 @@
 package org.eclipse.checkstyle.configurator;
 
 import org.eclipse.checkstyle.configurator.api.ICheckstyleProjectConfigurator;
+import org.eclipse.checkstyle.configurator.impl.CheckstyleBuildScheduler;
+import org.eclipse.checkstyle.configurator.impl.CheckstyleConfigurationQueue;
+import org.eclipse.checkstyle.configurator.impl.RuleSetCache;
+import org.eclipse.checkstyle.configurator.impl.RuleSetCacheCleaner;
+import org.eclipse.checkstyle.configurator.impl.RuleSetLocator;
 import org.eclipse.checkstyle.configurator.impl.CheckstyleProjectConfigurator;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
@@ -16,7 +21,18 @@ public class Activator extends AbstractUIPlugin {
 	// The shared instance
 	private static Activator plugin;
 	
-	private ICheckstyleProjectConfigurator checkstyleProjectConfigurator = null;
+	// Set on start, published to the threads configuring projects
+	private volatile ICheckstyleProjectConfigurator checkstyleProjectConfigurator;
+
+	private volatile CheckstyleBuildScheduler buildScheduler;
+
+	private volatile CheckstyleConfigurationQueue configurationQueue;
+
+	private volatile RuleSetCache ruleSetCache;
+
+	private volatile RuleSetCacheCleaner ruleSetCacheCleaner;
+
+	private volatile RuleSetLocator ruleSetLocator;
 	
 	/**
 	 * The constructor
@@ -31,6 +47,12 @@ public class Activator extends AbstractUIPlugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		buildScheduler = new CheckstyleBuildScheduler();
+		configurationQueue = new CheckstyleConfigurationQueue();
+		ruleSetCache = new RuleSetCache(getStateLocation().append("rulesets").toFile());
+		ruleSetCacheCleaner = new RuleSetCacheCleaner(ruleSetCache);
+		ruleSetLocator = new RuleSetLocator();
+		checkstyleProjectConfigurator = new CheckstyleProjectConfigurator();
 	}
 
 	/*
@@ -38,6 +60,16 @@ public class Activator extends AbstractUIPlugin {
 	 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		configurationQueue.cancel();
+		configurationQueue = null;
+		buildScheduler.cancel();
+		buildScheduler = null;
+		ruleSetCacheCleaner.cancel();
+		ruleSetCacheCleaner = null;
+		ruleSetCache = null;
+		ruleSetLocator.clear();
+		ruleSetLocator = null;
+		checkstyleProjectConfigurator = null;
 		plugin = null;
 		super.stop(context);
 	}
@@ -51,10 +83,57 @@ public class Activator extends AbstractUIPlugin {
 		return plugin;
 	}
 
+	/**
+	 * Returns the job running Checkstyle builds requested by configurators
+	 *
+	 * @return the build scheduler
+	 */
+	public CheckstyleBuildScheduler getBuildScheduler() {
+		return buildScheduler;
+	}
+
+	/**
+	 * Returns the job applying the configurations requested by configurators
+	 *
+	 * @return the configuration queue
+	 */
+	public CheckstyleConfigurationQueue getConfigurationQueue() {
+		return configurationQueue;
+	}
+
+	/**
+	 * Returns the local copies of the configured rulesets
+	 *
+	 * @return the ruleset cache
+	 */
+	public RuleSetCache getRuleSetCache() {
+		return ruleSetCache;
+	}
+
+	/**
+	 * Returns the job deleting the ruleset copies no configuration uses
+	 *
+	 * @return the ruleset cache cleaner
+	 */
+	public RuleSetCacheCleaner getRuleSetCacheCleaner() {
+		return ruleSetCacheCleaner;
+	}
+
+	/**
+	 * Returns the locator of configured ruleset locations
+	 *
+	 * @return the ruleset locator
+	 */
+	public RuleSetLocator getRuleSetLocator() {
+		return ruleSetLocator;
+	}
+
+	/**
+	 * Returns the configurator shared by every thread
+	 *
+	 * @return the checkstyle project configurator
+	 */
 	public ICheckstyleProjectConfigurator getCheckstyleProjectConfigurator() {
-	    if(checkstyleProjectConfigurator == null) {
-	        checkstyleProjectConfigurator = new CheckstyleProjectConfigurator();
-	    }
-	    return checkstyleProjectConfigurator;
+		return checkstyleProjectConfigurator;
 	}
 }
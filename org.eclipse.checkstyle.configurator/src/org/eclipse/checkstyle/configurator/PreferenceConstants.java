@@ -0,0 +1,31 @@
+package org.eclipse.checkstyle.configurator;
+
+/**
+ * Preference keys of the checkstyle configurator. Values can be set in the
+ * workspace preferences or in plugin_customization.ini for headless
+ * workspaces.
+ */
+public final class PreferenceConstants {
+
+    /**
+     * Register one global check configuration per unique ruleset and
+     * properties, referenced by every project using them, instead of a local
+     * check configuration per project.
+     */
+    public static final String SHARE_GLOBAL_CONFIGURATIONS = "shareGlobalConfigurations";
+
+    /**
+     * Build file sets from anchored source root patterns, excluding the
+     * source roots generated in the maven build directory.
+     */
+    public static final String SCOPED_FILE_SETS = "scopedFileSets";
+
+    /** Check the generated source roots too, in scoped file sets. */
+    public static final String INCLUDE_GENERATED_SOURCES = "includeGeneratedSources";
+
+    /** Check the test source roots too, in scoped file sets. */
+    public static final String INCLUDE_TEST_SOURCES = "includeTestSources";
+
+    private PreferenceConstants() {
+    }
+}
@@ -0,0 +1,19 @@
+package org.eclipse.checkstyle.configurator;
+
+import org.eclipse.core.runtime.preferences.AbstractPreferenceInitializer;
+import org.eclipse.jface.preference.IPreferenceStore;
+
+/**
+ * Initialize default preference values of the checkstyle configurator.
+ */
+public class PreferenceInitializer extends AbstractPreferenceInitializer {
+
+    @Override
+    public void initializeDefaultPreferences() {
+        final IPreferenceStore store = Activator.getDefault().getPreferenceStore();
+        store.setDefault(PreferenceConstants.SHARE_GLOBAL_CONFIGURATIONS, false);
+        store.setDefault(PreferenceConstants.SCOPED_FILE_SETS, true);
+        store.setDefault(PreferenceConstants.INCLUDE_GENERATED_SOURCES, false);
+        store.setDefault(PreferenceConstants.INCLUDE_TEST_SOURCES, false);
+    }
+}
@@ -0,0 +1,112 @@
+package org.eclipse.checkstyle.configurator.api;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.eclipse.core.resources.IProject;
+
+/**
+ * Checkstyle configuration of one project, as applied by
+ * {@link ICheckstyleProjectConfigurator#updateProjectConfigurations(List, org.eclipse.core.runtime.IProgressMonitor)}.
+ *
+ * @author Pierre BRUNIN
+ */
+public final class CheckstyleConfigurationRequest {
+
+    private final IProject project;
+
+    private final URL ruleSet;
+
+    private final Properties properties;
+
+    private final List<String> compileSource;
+
+    private final String configurationName;
+
+    private final List<String> testSource;
+
+    private final String buildDirectory;
+
+    /**
+     * @param project
+     *            the configured project
+     * @param ruleSet
+     *            the ruleset, or null to remove the configuration
+     * @param properties
+     *            the custom properties
+     * @param compileSource
+     *            the source roots to check
+     * @param configurationName
+     *            name of the eclipse-cs configuration
+     */
+    public CheckstyleConfigurationRequest(final IProject project, final URL ruleSet, final Properties properties,
+            final List<String> compileSource, final String configurationName) {
+        this(project, ruleSet, properties, compileSource, configurationName, Collections.<String> emptyList(),
+                null);
+    }
+
+    /**
+     * @param project
+     *            the configured project
+     * @param ruleSet
+     *            the ruleset, or null to remove the configuration
+     * @param properties
+     *            the custom properties
+     * @param compileSource
+     *            the source roots to check
+     * @param configurationName
+     *            name of the eclipse-cs configuration
+     * @param testSource
+     *            the test source roots, checked only if enabled in the
+     *            preferences
+     * @param buildDirectory
+     *            the maven build directory, where generated source roots
+     *            are found, or null
+     */
+    public CheckstyleConfigurationRequest(final IProject project, final URL ruleSet, final Properties properties,
+            final List<String> compileSource, final String configurationName, final List<String> testSource,
+            final String buildDirectory) {
+        this.project = project;
+        this.ruleSet = ruleSet;
+        this.properties = properties;
+        this.compileSource = compileSource;
+        this.configurationName = configurationName;
+        this.testSource = testSource;
+        this.buildDirectory = buildDirectory;
+    }
+
+    public IProject getProject() {
+        return project;
+    }
+
+    public URL getRuleSet() {
+        return ruleSet;
+    }
+
+    public Properties getProperties() {
+        return properties;
+    }
+
+    public List<String> getCompileSource() {
+        return compileSource;
+    }
+
+    public String getConfigurationName() {
+        return configurationName;
+    }
+
+    public List<String> getTestSource() {
+        return testSource;
+    }
+
+    public String getBuildDirectory() {
+        return buildDirectory;
+    }
+
+    @Override
+    public String toString() {
+        return configurationName + " on " + project.getName();
+    }
+}
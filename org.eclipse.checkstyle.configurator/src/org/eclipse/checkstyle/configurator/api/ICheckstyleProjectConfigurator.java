@@ -1,5 +1,6 @@
 package org.eclipse.checkstyle.configurator.api;
 
+import java.io.File;
 import java.net.URL;
 import java.util.List;
 import java.util.Properties;
@@ -13,10 +14,57 @@ public interface ICheckstyleProjectConfigurator {
 
     public URL locateRuleSet(final String location);
 
-    public void updateProjectConfiguration(final IProject project, final URL ruleSet, final Properties properties,
+    /**
+     * Locate a ruleset on the filesystem, as an URL, or as a resource of one
+     * of the plugin dependency jars.
+     * 
+     * @return the ruleset URL, or null if not found
+     */
+    public URL locateRuleSet(final String location, final List<File> jars);
+
+    /**
+     * Configure eclipse-cs for the project.
+     * 
+     * @return true if a Checkstyle build was scheduled, false if the effective
+     *         configuration did not change
+     */
+    public boolean updateProjectConfiguration(final IProject project, final URL ruleSet, final Properties properties,
             final List<String> compileSource, final String configurationName, final IProgressMonitor monitor)
             throws CoreException;
 
+    /**
+     * Configure eclipse-cs for the project of the request.
+     * 
+     * @return true if a Checkstyle build was scheduled, false if the effective
+     *         configuration did not change
+     */
+    public boolean updateProjectConfiguration(final CheckstyleConfigurationRequest request,
+            final IProgressMonitor monitor) throws CoreException;
+
+    /**
+     * Configure eclipse-cs for many projects at once. Every configuration is
+     * applied in memory first, then the new global configurations are stored
+     * together and each project configuration is stored once, in a single
+     * workspace operation, so resource change notifications are sent once
+     * for the batch. The last request of a project wins.
+     * 
+     * @return the projects for which a Checkstyle build was scheduled
+     */
+    public List<IProject> updateProjectConfigurations(final List<CheckstyleConfigurationRequest> requests,
+            final IProgressMonitor monitor) throws CoreException;
+
+    /**
+     * Request the configuration of eclipse-cs for the project of the
+     * request, without waiting for it. Requests made in a row, like the
+     * configuration of the modules of an import, are applied together by
+     * {@link #updateProjectConfigurations(List, IProgressMonitor)}.
+     */
+    public void requestProjectConfiguration(final CheckstyleConfigurationRequest request);
+
+    /**
+     * Check if maven-checkstyle-plugin is added, removed, or reconfigured,
+     * comparing the plugin version and configuration only.
+     */
     public boolean pluginChanged(final Plugin current, final Plugin old);
 
     public boolean urlChanged(final URL current, final URL old);
@@ -0,0 +1,34 @@
+package org.eclipse.checkstyle.configurator.impl;
+
+import java.io.IOException;
+import java.net.URL;
+
+import net.sf.eclipsecs.core.config.ICheckConfiguration;
+import net.sf.eclipsecs.core.config.configtypes.ConfigurationType;
+
+import org.eclipse.checkstyle.configurator.Activator;
+
+/**
+ * Configuration type for rulesets configured from maven or sonar. The
+ * location is the original ruleset URL, but Checkstyle reads the local copy
+ * kept in the {@link RuleSetCache}, so builds work offline and never wait on
+ * the network.
+ * 
+ * @author Pierre BRUNIN
+ */
+public class CachedConfigurationType extends ConfigurationType {
+
+    /** Internal name of the configuration type. **/
+    public static final String INTERNAL_NAME = "org.eclipse.checkstyle.configurator.cached";
+
+    @Override
+    protected URL resolveLocation(final ICheckConfiguration checkConfiguration) throws IOException {
+        return Activator.getDefault().getRuleSetCache().getURL(checkConfiguration.getLocation());
+    }
+
+    @Override
+    public boolean isConfigurable(final ICheckConfiguration checkConfiguration) {
+        // managed by the configurators
+        return false;
+    }
+}
@@ -0,0 +1,256 @@
+package org.eclipse.checkstyle.configurator.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.sf.eclipsecs.core.builder.CheckstyleBuilder;
+
+import org.eclipse.checkstyle.configurator.Activator;
+import org.eclipse.configurator.metrics.Metrics;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IEditorReference;
+import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.PlatformUI;
+import org.maven.ide.eclipse.core.MavenLogger;
+
+/**
+ * Collect Checkstyle build requests and run them in a single workspace job.
+ * <p>
+ * Requests are debounced, so configuring many projects in a row results in
+ * one job once the configuration is over. Projects selected in the Package
+ * Explorer are built first, then projects with open editors, so the markers
+ * the user is looking at appear first. The workbench is read on the UI thread
+ * when builds are requested, never while the job holds the build rule.
+ * 
+ * @author Pierre BRUNIN
+ */
+public class CheckstyleBuildScheduler extends WorkspaceJob {
+
+    /** Delay without new request before the build starts. **/
+    public static final long DEBOUNCE_DELAY = 1000L;
+
+    /** Maximum delay a request can be postponed by new ones. **/
+    public static final long MAX_DELAY = 10 * 1000L;
+
+    private static final String PACKAGE_EXPLORER = "org.eclipse.jdt.ui.PackageExplorer";
+
+    private static final Integer SELECTED = Integer.valueOf(0);
+
+    private static final Integer EDITED = Integer.valueOf(1);
+
+    private static final Integer OTHER = Integer.valueOf(2);
+
+    private final Set<IProject> pending = new LinkedHashSet<IProject>();
+
+    private long firstRequest;
+
+    /** Priorities read from the workbench on the last request. **/
+    private volatile Map<IProject, Integer> priorities = Collections.emptyMap();
+
+    private final AtomicBoolean prioritiesQueued = new AtomicBoolean();
+
+    public CheckstyleBuildScheduler() {
+        super("Checkstyle build");
+        setRule(ResourcesPlugin.getWorkspace().getRuleFactory().buildRule());
+        setPriority(BUILD);
+    }
+
+    /**
+     * Request a Checkstyle build of the project.
+     */
+    public void requestBuild(final IProject project) {
+        synchronized (pending) {
+            final long now = System.currentTimeMillis();
+            if (pending.isEmpty()) {
+                firstRequest = now;
+            }
+            pending.add(project);
+            if (getState() == RUNNING) {
+                // will run again once the current build is over
+                schedule(DEBOUNCE_DELAY);
+            } else if (now - firstRequest < MAX_DELAY) {
+                // postpone the build
+                cancel();
+                schedule(DEBOUNCE_DELAY);
+            } else {
+                schedule();
+            }
+        }
+        refreshPriorities();
+    }
+
+    /**
+     * Return the projects waiting for a build.
+     */
+    public Set<IProject> getPendingProjects() {
+        synchronized (pending) {
+            return new LinkedHashSet<IProject>(pending);
+        }
+    }
+
+    @Override
+    public IStatus runInWorkspace(final IProgressMonitor monitor) throws CoreException {
+        final List<IProject> projects;
+        synchronized (pending) {
+            projects = new ArrayList<IProject>(pending);
+            pending.clear();
+        }
+        prioritize(projects);
+        final MultiStatus status = new MultiStatus(Activator.PLUGIN_ID, IStatus.OK, "Checkstyle build failed", null);
+        monitor.beginTask(getName(), projects.size());
+        try {
+            for (final Iterator<IProject> iterator = projects.iterator(); iterator.hasNext();) {
+                final IProject project = iterator.next();
+                if (monitor.isCanceled()) {
+                    throw new OperationCanceledException();
+                }
+                if (project.isAccessible()) {
+                    monitor.subTask(project.getName());
+                    final long start = Metrics.start();
+                    try {
+                        project.build(IncrementalProjectBuilder.FULL_BUILD, CheckstyleBuilder.BUILDER_ID, null,
+                                new SubProgressMonitor(monitor, 1));
+                    } catch (CoreException e) {
+                        // other projects are still built
+                        MavenLogger.log("Failed to run Checkstyle on " + project.getName(), e);
+                        status.add(e.getStatus());
+                    } finally {
+                        Metrics.stop(Metrics.CHECKSTYLE_BUILD, start);
+                    }
+                } else {
+                    monitor.worked(1);
+                }
+                iterator.remove();
+            }
+        } finally {
+            synchronized (pending) {
+                if (!projects.isEmpty()) {
+                    // cancelled, keep remaining projects for next build
+                    if (pending.isEmpty()) {
+                        firstRequest = System.currentTimeMillis();
+                    }
+                    pending.addAll(projects);
+                }
+                if (!pending.isEmpty()) {
+                    schedule(DEBOUNCE_DELAY);
+                }
+            }
+            monitor.done();
+        }
+        return status.isOK() ? Status.OK_STATUS : status;
+    }
+
+    /**
+     * Job family is the scheduler class, to wait for pending builds.
+     */
+    @Override
+    public boolean belongsTo(final Object family) {
+        return CheckstyleBuildScheduler.class == family || super.belongsTo(family);
+    }
+
+    /**
+     * Sort projects: selected in Package Explorer, then with open editors,
+     * then others, as seen on the last build request.
+     */
+    protected void prioritize(final List<IProject> projects) {
+        final Map<IProject, Integer> snapshot = priorities;
+        if (snapshot.isEmpty()) {
+            return;
+        }
+        Collections.sort(projects, new Comparator<IProject>() {
+            public int compare(final IProject p1, final IProject p2) {
+                return priorityOf(p1, snapshot).compareTo(priorityOf(p2, snapshot));
+            }
+        });
+    }
+
+    /**
+     * Read the selected and edited projects on the UI thread, without
+     * waiting for it. Requests made while a read is queued share it.
+     */
+    private void refreshPriorities() {
+        if (!PlatformUI.isWorkbenchRunning()) {
+            return;
+        }
+        final IWorkbench workbench = PlatformUI.getWorkbench();
+        final Display display = workbench.getDisplay();
+        if (display.isDisposed() || !prioritiesQueued.compareAndSet(false, true)) {
+            return;
+        }
+        display.asyncExec(new Runnable() {
+            public void run() {
+                prioritiesQueued.set(false);
+                final Map<IProject, Integer> collected = new HashMap<IProject, Integer>();
+                for (final IWorkbenchWindow window : workbench.getWorkbenchWindows()) {
+                    for (final IWorkbenchPage page : window.getPages()) {
+                        collectEditedProjects(page, collected);
+                        collectSelectedProjects(page, collected);
+                    }
+                }
+                priorities = collected;
+            }
+        });
+    }
+
+    private static Integer priorityOf(final IProject project, final Map<IProject, Integer> priorities) {
+        final Integer priority = priorities.get(project);
+        return priority == null ? OTHER : priority;
+    }
+
+    private static void collectEditedProjects(final IWorkbenchPage page, final Map<IProject, Integer> priorities) {
+        for (final IEditorReference reference : page.getEditorReferences()) {
+            try {
+                final IEditorInput input = reference.getEditorInput();
+                final IFile file = input == null ? null : (IFile) input.getAdapter(IFile.class);
+                if (file != null && !priorities.containsKey(file.getProject())) {
+                    priorities.put(file.getProject(), EDITED);
+                }
+            } catch (PartInitException e) {
+                MavenLogger.log("Failed to get editor input of " + reference.getName(), e);
+            }
+        }
+    }
+
+    private static void collectSelectedProjects(final IWorkbenchPage page, final Map<IProject, Integer> priorities) {
+        final ISelection selection = page.getSelection(PACKAGE_EXPLORER);
+        if (selection instanceof IStructuredSelection) {
+            for (final Iterator<?> iterator = ((IStructuredSelection) selection).iterator(); iterator.hasNext();) {
+                final Object element = iterator.next();
+                if (element instanceof IAdaptable) {
+                    final IResource resource = (IResource) ((IAdaptable) element).getAdapter(IResource.class);
+                    if (resource != null) {
+                        priorities.put(resource.getProject(), SELECTED);
+                    }
+                }
+            }
+        }
+    }
+}
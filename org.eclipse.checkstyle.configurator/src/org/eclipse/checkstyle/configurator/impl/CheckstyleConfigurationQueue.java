@@ -0,0 +1,108 @@
+package org.eclipse.checkstyle.configurator.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.checkstyle.configurator.Activator;
+import org.eclipse.checkstyle.configurator.api.CheckstyleConfigurationRequest;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+
+/**
+ * Collect Checkstyle configuration requests and apply them in a single
+ * batch.
+ * <p>
+ * Requests are debounced like Checkstyle builds, so the projects configured
+ * one by one during an import are applied together by
+ * {@link CheckstyleProjectConfigurator#updateProjectConfigurations}: the
+ * global configurations are stored once and each project configuration once.
+ * The last request of a project wins.
+ *
+ * @author Pierre BRUNIN
+ */
+public class CheckstyleConfigurationQueue extends WorkspaceJob {
+
+    /** Delay without new request before the configuration starts. **/
+    public static final long DEBOUNCE_DELAY = 500L;
+
+    /** Maximum delay a request can be postponed by new ones. **/
+    public static final long MAX_DELAY = 10 * 1000L;
+
+    private final Map<IProject, CheckstyleConfigurationRequest> pending = new LinkedHashMap<IProject, CheckstyleConfigurationRequest>();
+
+    private long firstRequest;
+
+    public CheckstyleConfigurationQueue() {
+        super("Checkstyle configuration");
+        setPriority(BUILD);
+    }
+
+    /**
+     * Request the configuration of the project of the request, replacing
+     * the pending request of the project if any.
+     */
+    public void enqueue(final CheckstyleConfigurationRequest request) {
+        synchronized (pending) {
+            final long now = System.currentTimeMillis();
+            if (pending.isEmpty()) {
+                firstRequest = now;
+            }
+            pending.remove(request.getProject());
+            pending.put(request.getProject(), request);
+            if (getState() == RUNNING) {
+                // will run again once the current batch is over
+                schedule(DEBOUNCE_DELAY);
+            } else if (now - firstRequest < MAX_DELAY) {
+                // postpone the batch
+                cancel();
+                schedule(DEBOUNCE_DELAY);
+            } else {
+                schedule();
+            }
+        }
+    }
+
+    @Override
+    public IStatus runInWorkspace(final IProgressMonitor monitor) throws CoreException {
+        final List<CheckstyleConfigurationRequest> requests;
+        synchronized (pending) {
+            requests = new ArrayList<CheckstyleConfigurationRequest>(pending.values());
+            pending.clear();
+        }
+        try {
+            Activator.getDefault().getCheckstyleProjectConfigurator().updateProjectConfigurations(requests, monitor);
+        } catch (OperationCanceledException e) {
+            synchronized (pending) {
+                // keep the requests for next batch, unless replaced meanwhile
+                for (final CheckstyleConfigurationRequest request : requests) {
+                    if (!pending.containsKey(request.getProject())) {
+                        pending.put(request.getProject(), request);
+                    }
+                }
+            }
+            return Status.CANCEL_STATUS;
+        } finally {
+            synchronized (pending) {
+                if (!pending.isEmpty()) {
+                    schedule(DEBOUNCE_DELAY);
+                }
+            }
+        }
+        return Status.OK_STATUS;
+    }
+
+    /**
+     * Job family is the queue class, to wait for pending configurations.
+     */
+    @Override
+    public boolean belongsTo(final Object family) {
+        return CheckstyleConfigurationQueue.class == family || super.belongsTo(family);
+    }
+}
@@ -18,17 +18,27 @@ package org.eclipse.checkstyle.configurator.impl;
  */
 
 import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
 
 import net.sf.eclipsecs.core.CheckstylePlugin;
-import net.sf.eclipsecs.core.builder.CheckstyleBuilder;
 import net.sf.eclipsecs.core.builder.CheckstyleMarker;
+import net.sf.eclipsecs.core.config.CheckConfigurationFactory;
 import net.sf.eclipsecs.core.config.CheckConfigurationWorkingCopy;
 import net.sf.eclipsecs.core.config.ICheckConfiguration;
 import net.sf.eclipsecs.core.config.ICheckConfigurationWorkingSet;
@@ -42,11 +52,29 @@ import net.sf.eclipsecs.core.projectconfig.ProjectConfigurationFactory;
 import net.sf.eclipsecs.core.projectconfig.ProjectConfigurationWorkingCopy;
 import net.sf.eclipsecs.core.util.CheckstylePluginException;
 
+import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Plugin;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.eclipse.checkstyle.configurator.Activator;
+import org.eclipse.checkstyle.configurator.PreferenceConstants;
+import org.eclipse.checkstyle.configurator.api.CheckstyleConfigurationRequest;
 import org.eclipse.checkstyle.configurator.api.ICheckstyleProjectConfigurator;
+import org.eclipse.configurator.delta.DeltaScope;
+import org.eclipse.configurator.delta.DeltaScopeTracker;
+import org.eclipse.configurator.delta.IDeltaScopeListener;
+import org.eclipse.configurator.metrics.Metrics;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.QualifiedName;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.MultiRule;
 import org.maven.ide.eclipse.core.MavenLogger;
 
 /**
@@ -59,47 +87,53 @@ public class CheckstyleProjectConfigurator implements ICheckstyleProjectConfigur
     /** Name of source fileset. **/
     public static final String JAVA_SOURCE = "java-source";
 
+    /** Digest of the configuration last applied to a project. **/
+    public static final QualifiedName CONFIGURATION_DIGEST = new QualifiedName(Activator.PLUGIN_ID,
+            "configurationDigest");
+
+    /** Guards the global check configurations, shared by every project. **/
+    private static final Object GLOBAL_CONFIGURATIONS_LOCK = new Object();
+
+    /** Apply the configuration again when the changed files moved. **/
+    private final DeltaScopeUpdater deltaScope = new DeltaScopeUpdater();
+
+    /** Checkstyle cache file property, set for every project. **/
+    private static final String CACHE_FILE_PROPERTY = "checkstyle.cache.file";
+
+    /** maven-checkstyle-plugin parameters the configuration depends on. **/
+    private static final String[] FINGERPRINT_PARAMETERS = { "configLocation", "propertiesLocation",
+            "propertyExpansion" };
 
     /**
      * Load a ruleset by trying various load strategies.
      */
     public URL locateRuleSet(final String location) {
-        // Try filesystem
-        final File file = new File(location);
-        if (file.exists()) {
-            try {
-                // uh uh uh :)
-                return file.toURI().toURL();
-            } catch (MalformedURLException e) {
-                // ??
-            }
-        }
-
-        // try a url
-        try {
-            final URL url = new URL(location);
-            url.openStream();
-            return url;
+        return locateRuleSet(location, Collections.<File> emptyList());
+    }
 
-        } catch (MalformedURLException e) {
-            // Not a valid URL
-        } catch (Exception e) {
-            // Valid URL but does not exist
-        }
-        return null;
+    /**
+     * Load a ruleset by trying various load strategies, including resources
+     * of the given plugin dependency jars.
+     */
+    public URL locateRuleSet(final String location, final List<File> jars) {
+        return Activator.getDefault().getRuleSetLocator().locate(location, jars);
     }
 
     /**
      * Retrieve a pre-existing LocalCheckConfiguration for maven to eclipse-cs
-     * integration, or create a new one
+     * integration, or create a new one. Changes are made to the local working
+     * set of the project configuration, which is stored by the caller.
      */
     public ICheckConfiguration createOrUpdateLocalCheckConfiguration(final IProject project,
             final ProjectConfigurationWorkingCopy projectConfig, final URL ruleSet, final String configurationName)
             throws CheckstylePluginException {
 
-        /** IConfigurationType for remote configuration. */
+        /** IConfigurationType for cached configuration. */
+        final IConfigurationType cachedConfigurationType = ConfigurationTypes
+                .getByInternalName(CachedConfigurationType.INTERNAL_NAME);
+        /** IConfigurationType for remote configuration, used by previous versions. */
         final IConfigurationType remoteConfigurationType = ConfigurationTypes.getByInternalName("remote");
-        
+
         MavenLogger.log("Configure checkstyle from ruleSet " + ruleSet);
         final ICheckConfigurationWorkingSet workingSet = projectConfig.getLocalCheckConfigWorkingSet();
 
@@ -109,12 +143,20 @@ public class CheckstyleProjectConfigurator implements ICheckstyleProjectConfigur
         if (workingCopies != null) {
             for (final CheckConfigurationWorkingCopy copy : workingCopies) {
                 if (configurationName.equals(copy.getName())) {
-                    if (remoteConfigurationType.equals(copy.getType())) {
+                    if (cachedConfigurationType.equals(copy.getType())) {
 
                         MavenLogger.log("A local Checkstyle configuration allready exists with name "
                                 + configurationName + ". It will be updated to maven plugin configuration");
                         workingCopy = copy;
                         break;
+                    } else if (remoteConfigurationType.equals(copy.getType())) {
+
+                        MavenLogger.log("A remote Checkstyle configuration allready exists with name "
+                                + configurationName + ". It will be replaced by a cached configuration");
+                        if (!removeLocalCheckConfiguration(projectConfig, copy)) {
+                            return null;
+                        }
+                        break;
                     } else {
                         MavenLogger.log("A local Checkstyle configuration allready exists with name "
                                 + configurationName + " with incompatible type");
@@ -127,18 +169,15 @@ public class CheckstyleProjectConfigurator implements ICheckstyleProjectConfigur
         if (ruleSet == null) {
             // remove existing config if ruleset not set
             if (workingCopy != null) {
-                workingSet.removeCheckConfiguration(workingCopy);
-                remoteConfigurationType.notifyCheckConfigRemoved(workingCopy);
-                workingSet.store();
+                removeLocalCheckConfiguration(projectConfig, workingCopy);
             }
             return null;
         }
         if (workingCopy == null) {
             // Create a fresh check config
-            workingCopy = workingSet.newWorkingCopy(remoteConfigurationType);
+            workingCopy = workingSet.newWorkingCopy(cachedConfigurationType);
             workingCopy.setName(configurationName);
             workingSet.addCheckConfiguration(workingCopy);
-            workingSet.store();
         }
 
         workingCopy.setDescription("Maven checkstyle configuration");
@@ -147,6 +186,32 @@ public class CheckstyleProjectConfigurator implements ICheckstyleProjectConfigur
         return workingCopy;
     }
 
+    /**
+     * Remove a local check configuration, with the file sets using it:
+     * eclipse-cs refuses to remove a configuration still in use. The file sets
+     * are built again by the caller.
+     * 
+     * @return true if the configuration was removed
+     */
+    private boolean removeLocalCheckConfiguration(final ProjectConfigurationWorkingCopy projectConfig,
+            final CheckConfigurationWorkingCopy checkConfig) {
+        final Iterator<FileSet> fileSets = projectConfig.getFileSets().iterator();
+        while (fileSets.hasNext()) {
+            final ICheckConfiguration fileSetConfig = fileSets.next().getCheckConfig();
+            if (fileSetConfig != null && !fileSetConfig.isGlobal()
+                    && checkConfig.getName().equals(fileSetConfig.getName())) {
+                fileSets.remove();
+            }
+        }
+        if (!projectConfig.getLocalCheckConfigWorkingSet().removeCheckConfiguration(checkConfig)) {
+            MavenLogger.log("Failed to remove the Checkstyle configuration " + checkConfig.getName() + " of "
+                    + projectConfig.getProject().getName() + ", it is still in use");
+            return false;
+        }
+        checkConfig.getType().notifyCheckConfigRemoved(checkConfig);
+        return true;
+    }
+
     /**
      * Configure the Checkstyle FileSet to match the maven project
      * compileSourceRoots.
@@ -167,6 +232,176 @@ public class CheckstyleProjectConfigurator implements ICheckstyleProjectConfigur
         }
     }
 
+    /**
+     * Configure the Checkstyle FileSet to match the maven project source roots
+     * of the request. Scoped file sets exclude the source roots generated in
+     * the build directory, and may include the test source roots.
+     */
+    public void removeAndAddNewFileSet(final CheckstyleConfigurationRequest request,
+            final ProjectConfigurationWorkingCopy copy, final ICheckConfiguration checkConfig)
+            throws CheckstylePluginException {
+        removeAndAddNewFileSet(request, null, copy, checkConfig);
+    }
+
+    /**
+     * Configure the Checkstyle FileSet to match the maven project source roots
+     * of the request, and only the changed files of these roots if
+     * changedFiles is not null.
+     */
+    public void removeAndAddNewFileSet(final CheckstyleConfigurationRequest request,
+            final SortedSet<String> changedFiles, final ProjectConfigurationWorkingCopy copy,
+            final ICheckConfiguration checkConfig) throws CheckstylePluginException {
+        final boolean scoped = getPreference(PreferenceConstants.SCOPED_FILE_SETS);
+        if (!scoped && changedFiles == null) {
+            removeAndAddNewFileSet(request.getProject(), request.getCompileSource(), copy, checkConfig);
+            return;
+        }
+        // remove existing filesets
+        copy.getFileSets().clear();
+
+        if (checkConfig != null) {
+            final List<String> sourceRoots = scoped ? getScopedSourceRoots(request) : request.getCompileSource();
+            final List<String> relativeRoots = toRelativePaths(sourceRoots, request.getProject().getLocationURI());
+            final FileSet fileSet;
+            if (changedFiles == null) {
+                fileSet = generateScopedFileSet(relativeRoots, JAVA_SOURCE, checkConfig);
+            } else {
+                fileSet = generateDeltaFileSet(relativeRoots, changedFiles, JAVA_SOURCE, checkConfig);
+            }
+
+            // add to copy filesets
+            copy.getFileSets().add(fileSet);
+        }
+    }
+
+    /**
+     * Return the source roots of the request to check: compile source roots,
+     * test source roots if enabled, without generated source roots unless
+     * enabled.
+     */
+    protected List<String> getScopedSourceRoots(final CheckstyleConfigurationRequest request) {
+        final boolean includeGenerated = getPreference(PreferenceConstants.INCLUDE_GENERATED_SOURCES);
+        final List<String> sourceRoots = new ArrayList<String>(request.getCompileSource());
+        if (getPreference(PreferenceConstants.INCLUDE_TEST_SOURCES)) {
+            sourceRoots.addAll(request.getTestSource());
+        }
+        final List<String> scopedRoots = new ArrayList<String>();
+        for (final String sourceRoot : sourceRoots) {
+            if (includeGenerated || !isGenerated(sourceRoot, request.getBuildDirectory())) {
+                scopedRoots.add(sourceRoot);
+            }
+        }
+        return scopedRoots;
+    }
+
+    /**
+     * Check if a source root is generated in the maven build directory, like
+     * target/generated-sources/annotations.
+     */
+    protected boolean isGenerated(final String sourceRoot, final String buildDirectory) {
+        if (buildDirectory == null) {
+            return false;
+        }
+        final String root = new File(sourceRoot).getAbsolutePath();
+        final String build = new File(buildDirectory).getAbsolutePath();
+        return root.equals(build) || root.startsWith(build + File.separator);
+    }
+
+    /**
+     * Return the paths of the source roots relative to the project, without
+     * trailing '/', empty for the project itself. Source roots outside of the
+     * project are left out.
+     */
+    protected List<String> toRelativePaths(final List<String> sourceRoots, final URI basedir) {
+        final List<String> relativePaths = new ArrayList<String>();
+        for (final String sourceRoot : sourceRoots) {
+            final URI relativeURI = basedir.relativize(new File(sourceRoot).toURI());
+            if (relativeURI.isAbsolute()) {
+                MavenLogger.log("Source root " + sourceRoot + " is outside of the project, it is not checked");
+                continue;
+            }
+            String relativePath = relativeURI.getPath();
+            if (relativePath.endsWith("/")) {
+                relativePath = relativePath.substring(0, relativePath.length() - 1);
+            }
+            relativePaths.add(relativePath);
+        }
+        return relativePaths;
+    }
+
+    /**
+     * Generate Fileset matching the java files of the source roots, with
+     * patterns anchored at the project root.
+     */
+    protected FileSet generateScopedFileSet(final List<String> relativeRoots, final String fileSetName,
+            final ICheckConfiguration checkConfig) throws CheckstylePluginException {
+        final FileSet fileSet = new FileSet(fileSetName, checkConfig);
+        fileSet.setEnabled(true);
+
+        final List<FileMatchPattern> patterns = new ArrayList<FileMatchPattern>();
+
+        for (final String relativeRoot : relativeRoots) {
+            if (relativeRoot.length() == 0) {
+                patterns.add(new FileMatchPattern("^.*\\.java$"));
+            } else {
+                patterns.add(new FileMatchPattern("^" + Pattern.quote(relativeRoot) + "/.*\\.java$"));
+            }
+        }
+
+        fileSet.setFileMatchPatterns(patterns);
+        return fileSet;
+    }
+
+    /**
+     * Generate Fileset matching only the changed java files of the source
+     * roots, one anchored pattern per file.
+     */
+    protected FileSet generateDeltaFileSet(final List<String> relativeRoots, final SortedSet<String> changedFiles,
+            final String fileSetName, final ICheckConfiguration checkConfig) throws CheckstylePluginException {
+        final FileSet fileSet = new FileSet(fileSetName, checkConfig);
+        fileSet.setEnabled(true);
+
+        final List<FileMatchPattern> patterns = new ArrayList<FileMatchPattern>();
+
+        for (final String changedFile : changedFiles) {
+            if (!changedFile.endsWith(".java")) {
+                continue;
+            }
+            for (final String relativeRoot : relativeRoots) {
+                if (relativeRoot.length() == 0 || changedFile.startsWith(relativeRoot + "/")) {
+                    patterns.add(new FileMatchPattern("^" + Pattern.quote(changedFile) + "$"));
+                    break;
+                }
+            }
+        }
+
+        fileSet.setFileMatchPatterns(patterns);
+        return fileSet;
+    }
+
+    /**
+     * Start tracking the files of the project changed against the git base
+     * ref if the delta scope is enabled, stop tracking them otherwise.
+     * 
+     * @return the changed files, or null if all files are checked
+     */
+    protected SortedSet<String> trackChangedFiles(final CheckstyleConfigurationRequest request) {
+        final IProject project = request.getProject();
+        final DeltaScopeTracker tracker = DeltaScope.getTracker();
+        if (request.getRuleSet() != null && DeltaScope.isEnabled()) {
+            deltaScope.requests.put(project, request);
+            try {
+                return tracker.track(project, DeltaScope.getBaseRef(), deltaScope);
+            } catch (IOException e) {
+                MavenLogger.log("Failed to read files changed in " + project.getName() + ", all files are checked",
+                        e);
+            }
+        }
+        deltaScope.requests.remove(project);
+        tracker.untrack(project, deltaScope);
+        return null;
+    }
+
     /**
      * Generate Fileset with source list.
      * 
@@ -204,44 +439,343 @@ public class CheckstyleProjectConfigurator implements ICheckstyleProjectConfigur
      * @param checkConfig
      */
     public void addCustomProperties(final Properties properties, final ICheckConfiguration checkConfig) {
-        // Custom properties
-
-        properties.setProperty("checkstyle.cache.file", "${project_loc}/checkstyle-cachefile");
+        // Custom properties, which may be shared by several projects and must
+        // not be modified
 
         List<ResolvableProperty> props = checkConfig.getResolvableProperties();
         props.clear();
+        props.addAll(toResolvableProperties(properties));
+    }
+
+    /* the cache file is resolved against the checked project, so it can be shared */
+    private List<ResolvableProperty> toResolvableProperties(final Properties properties) {
+        final List<ResolvableProperty> props = new ArrayList<ResolvableProperty>();
+        props.add(new ResolvableProperty(CACHE_FILE_PROPERTY, "${project_loc}/checkstyle-cachefile"));
         for (final Entry entry : properties.entrySet()) {
-            props.add(new ResolvableProperty((String) entry.getKey(), (String) entry.getValue()));
+            if (!CACHE_FILE_PROPERTY.equals(entry.getKey())) {
+                props.add(new ResolvableProperty((String) entry.getKey(), (String) entry.getValue()));
+            }
+        }
+        return props;
+    }
+
+    /**
+     * Retrieve the global check configuration registered for a ruleset
+     * content and properties, or register a new one. Projects using the same
+     * ruleset and properties share the same configuration, and so the same
+     * Checkstyle checker.
+     * 
+     * @return the global configuration, or null if the ruleset can't be read
+     */
+    public ICheckConfiguration getOrCreateGlobalCheckConfiguration(final URL ruleSet, final URL localRuleSet,
+            final Properties properties, final String configurationName) throws CheckstylePluginException {
+        final PendingConfigurations pending = new PendingConfigurations();
+        final ICheckConfiguration checkConfig = getOrCreateGlobalCheckConfiguration(ruleSet, localRuleSet,
+                properties, configurationName, pending);
+        if (checkConfig == null) {
+            return null;
+        }
+        storeGlobalConfigurations(pending);
+        return CheckConfigurationFactory.getCheckConfiguration(checkConfig.getName());
+    }
+
+    /**
+     * Retrieve the global check configuration registered for a ruleset
+     * content and properties, or add a new one to the pending
+     * configurations. The new configuration is registered when the pending
+     * configurations are stored.
+     * 
+     * @return the global configuration, or null if the ruleset can't be read
+     */
+    private ICheckConfiguration getOrCreateGlobalCheckConfiguration(final URL ruleSet, final URL localRuleSet,
+            final Properties properties, final String configurationName, final PendingConfigurations pending)
+            throws CheckstylePluginException {
+        final String ruleSetHash;
+        try {
+            ruleSetHash = new ConfigurationDigest().addContent(localRuleSet).toHex();
+        } catch (IOException e) {
+            MavenLogger.log("Failed to read Checkstyle ruleSet " + localRuleSet, e);
+            return null;
+        }
+        final List<ResolvableProperty> resolvableProperties = toResolvableProperties(properties);
+        final String propertiesHash = new ConfigurationDigest().addProperties(resolvableProperties).toHex();
+        final String globalName = configurationName + " " + ruleSetHash.substring(0, 8) + "-"
+                + propertiesHash.substring(0, 8);
+
+        synchronized (GLOBAL_CONFIGURATIONS_LOCK) {
+            final ICheckConfiguration existing = CheckConfigurationFactory.getCheckConfiguration(globalName);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        final CheckConfigurationWorkingCopy pendingConfig = pending.globalConfigurations.get(globalName);
+        if (pendingConfig != null) {
+            return pendingConfig;
+        }
+        MavenLogger.log("Register global Checkstyle configuration " + globalName + " for ruleSet " + ruleSet);
+        final CheckConfigurationWorkingCopy workingCopy = newGlobalCheckConfiguration(pending
+                .getGlobalWorkingSet(), globalName);
+        workingCopy.setDescription("Maven checkstyle configuration shared by projects using ruleset "
+                + ruleSetHash + " and properties " + propertiesHash);
+        workingCopy.setLocation(ruleSet.toExternalForm());
+        workingCopy.getResolvableProperties().addAll(resolvableProperties);
+        pending.globalConfigurations.put(globalName, workingCopy);
+        return workingCopy;
+    }
+
+    private CheckConfigurationWorkingCopy newGlobalCheckConfiguration(final ICheckConfigurationWorkingSet workingSet,
+            final String name) throws CheckstylePluginException {
+        final CheckConfigurationWorkingCopy workingCopy = workingSet.newWorkingCopy(ConfigurationTypes
+                .getByInternalName(CachedConfigurationType.INTERNAL_NAME));
+        workingCopy.setName(name);
+        workingSet.addCheckConfiguration(workingCopy);
+        return workingCopy;
+    }
+
+    /**
+     * Register the pending global configurations in a single store of the
+     * global working set, leaving out those registered meanwhile by another
+     * batch, then make the pending file sets use the registered
+     * configurations.
+     */
+    private void storeGlobalConfigurations(final PendingConfigurations pending) throws CheckstylePluginException {
+        if (pending.globalConfigurations.isEmpty()) {
+            return;
+        }
+        synchronized (GLOBAL_CONFIGURATIONS_LOCK) {
+            final ICheckConfigurationWorkingSet workingSet = CheckConfigurationFactory.newWorkingSet();
+            boolean added = false;
+            for (final CheckConfigurationWorkingCopy pendingConfig : pending.globalConfigurations.values()) {
+                if (CheckConfigurationFactory.getCheckConfiguration(pendingConfig.getName()) == null) {
+                    final CheckConfigurationWorkingCopy workingCopy = newGlobalCheckConfiguration(workingSet,
+                            pendingConfig.getName());
+                    workingCopy.setDescription(pendingConfig.getDescription());
+                    workingCopy.setLocation(pendingConfig.getLocation());
+                    workingCopy.getResolvableProperties().addAll(pendingConfig.getResolvableProperties());
+                    added = true;
+                }
+            }
+            if (added) {
+                final long start = Metrics.start();
+                workingSet.store();
+                Metrics.stop(Metrics.CHECKSTYLE_STORE, start);
+            }
+        }
+        for (final PendingProjectConfiguration project : pending.projects) {
+            for (final FileSet fileSet : project.workingCopy.getFileSets()) {
+                final ICheckConfiguration checkConfig = fileSet.getCheckConfig();
+                if (checkConfig != null && pending.globalConfigurations.get(checkConfig.getName()) == checkConfig) {
+                    fileSet.setCheckConfig(CheckConfigurationFactory.getCheckConfiguration(checkConfig.getName()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy the ruleset in the local cache read by Checkstyle builds.
+     * 
+     * @return URL of the local copy, or null if ruleset is not set or was
+     *         never cached
+     */
+    protected URL refreshRuleSet(final URL ruleSet) {
+        if (ruleSet == null) {
+            return null;
+        }
+        final RuleSetCache ruleSetCache = Activator.getDefault().getRuleSetCache();
+        File file;
+        try {
+            file = ruleSetCache.refresh(ruleSet);
+        } catch (IOException e) {
+            MavenLogger.log("Failed to refresh Checkstyle ruleSet " + ruleSet + ", using cached copy", e);
+            file = ruleSetCache.getFile(ruleSet.toExternalForm());
+            if (!file.isFile()) {
+                return null;
+            }
+        }
+        try {
+            return file.toURI().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Return digest of the effective configuration, or null if the ruleset
+     * can't be read.
+     */
+    protected String computeDigest(final URL ruleSet, final URL localRuleSet,
+            final ProjectConfigurationWorkingCopy workingCopy, final ICheckConfiguration checkConfig,
+            final String configurationName) {
+        final ConfigurationDigest digest = new ConfigurationDigest();
+        digest.add(configurationName);
+        if (ruleSet != null) {
+            if (localRuleSet == null) {
+                return null;
+            }
+            digest.add(ruleSet.toExternalForm());
+            try {
+                digest.addContent(localRuleSet);
+            } catch (IOException e) {
+                MavenLogger.log("Failed to read Checkstyle ruleSet " + localRuleSet, e);
+                return null;
+            }
         }
+        if (checkConfig != null) {
+            digest.addProperties(checkConfig.getResolvableProperties());
+        }
+        digest.addFileSets(workingCopy.getFileSets());
+        return digest.toHex();
     }
 
     /**
      * Configure the eclipse Checkstyle plugin based on maven plugin
-     * configuration and resources.
+     * configuration and resources. The ruleset is copied in the local cache
+     * read by Checkstyle builds, and Checkstyle is run again only if the
+     * digest of the effective configuration changed.
+     * 
+     * @return true if a Checkstyle build was scheduled
      */
-    public void updateProjectConfiguration(final IProject project, final URL ruleSet, final Properties properties,
+    public boolean updateProjectConfiguration(final IProject project, final URL ruleSet, final Properties properties,
             final List<String> compileSource, final String configurationName, final IProgressMonitor monitor)
             throws CoreException {
+        return updateProjectConfiguration(new CheckstyleConfigurationRequest(project, ruleSet, properties,
+                compileSource, configurationName), monitor);
+    }
+
+    /**
+     * Configure eclipse-cs for many projects at once. Every configuration is
+     * applied in memory first; the new global configurations are then stored
+     * together, and each project configuration is stored once, in a single
+     * workspace operation holding the rules of all projects.
+     * 
+     * @return the projects for which a Checkstyle build was scheduled
+     */
+    public List<IProject> updateProjectConfigurations(final List<CheckstyleConfigurationRequest> requests,
+            final IProgressMonitor monitor) throws CoreException {
+        final long start = Metrics.start();
+        try {
+            return applyProjectConfigurations(requests, monitor);
+        } finally {
+            Metrics.stop(Metrics.CHECKSTYLE_UPDATE, start);
+        }
+    }
+
+    /**
+     * Configure eclipse-cs for the project of the request, a batch of one
+     * request. Configurations of the same project are serialized by the
+     * project scheduling rule, which the stores need anyway; other projects
+     * may be configured concurrently.
+     */
+    public boolean updateProjectConfiguration(final CheckstyleConfigurationRequest request,
+            final IProgressMonitor monitor) throws CoreException {
+        return !updateProjectConfigurations(Collections.singletonList(request), monitor).isEmpty();
+    }
+
+    /**
+     * Queue the request, applied in a batch by the configuration queue.
+     */
+    public void requestProjectConfiguration(final CheckstyleConfigurationRequest request) {
+        Activator.getDefault().getConfigurationQueue().enqueue(request);
+    }
+
+    private List<IProject> applyProjectConfigurations(final List<CheckstyleConfigurationRequest> requests,
+            final IProgressMonitor monitor) throws CoreException {
+        // the last request of a project wins
+        final Map<IProject, CheckstyleConfigurationRequest> lastRequests = new LinkedHashMap<IProject, CheckstyleConfigurationRequest>();
+        for (final CheckstyleConfigurationRequest request : requests) {
+            lastRequests.remove(request.getProject());
+            lastRequests.put(request.getProject(), request);
+        }
+        final List<CheckstyleConfigurationRequest> batch = new ArrayList<CheckstyleConfigurationRequest>(
+                lastRequests.values());
+        final List<IProject> changed = new ArrayList<IProject>();
+        if (batch.isEmpty()) {
+            return changed;
+        }
+        monitor.beginTask("Checkstyle configuration update", batch.size() * 3);
+        try {
+            // copy the rulesets and run git before taking the project rules, it may take a while
+            final List<URL> localRuleSets = new ArrayList<URL>(batch.size());
+            final List<SortedSet<String>> changedFiles = new ArrayList<SortedSet<String>>(batch.size());
+            for (final CheckstyleConfigurationRequest request : batch) {
+                if (monitor.isCanceled()) {
+                    throw new OperationCanceledException();
+                }
+                final long refreshStart = Metrics.start();
+                localRuleSets.add(refreshRuleSet(request.getRuleSet()));
+                Metrics.stop(Metrics.CHECKSTYLE_REFRESH_RULESET, refreshStart);
+                changedFiles.add(trackChangedFiles(request));
+                monitor.worked(1);
+            }
+
+            final ISchedulingRule rule = MultiRule.combine(lastRequests.keySet().toArray(
+                    new ISchedulingRule[lastRequests.size()]));
+            ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+                public void run(final IProgressMonitor monitor) throws CoreException {
+                    monitor.beginTask("Checkstyle configuration update", batch.size() * 2);
+                    try {
+                        final PendingConfigurations pending = new PendingConfigurations();
+                        for (int i = 0; i < batch.size(); i++) {
+                            if (monitor.isCanceled()) {
+                                throw new OperationCanceledException();
+                            }
+                            applyProjectConfiguration(batch.get(i), localRuleSets.get(i), changedFiles.get(i),
+                                    pending);
+                            monitor.worked(1);
+                        }
+                        changed.addAll(storeProjectConfigurations(pending, new SubProgressMonitor(monitor, batch
+                                .size())));
+                    } finally {
+                        monitor.done();
+                    }
+                }
+            }, rule, IWorkspace.AVOID_UPDATE, new SubProgressMonitor(monitor, batch.size() * 2));
+            if (!changed.isEmpty()) {
+                // projects may have left a ruleset
+                Activator.getDefault().getRuleSetCacheCleaner().schedule(RuleSetCacheCleaner.DELAY);
+            }
+            return changed;
+        } finally {
+            monitor.done();
+        }
+    }
+
+    /**
+     * Change the eclipse-cs configuration of the project in memory, and add
+     * it to the pending configurations. The caller holds the project
+     * scheduling rule.
+     */
+    private void applyProjectConfiguration(final CheckstyleConfigurationRequest request, final URL localRuleSet,
+            final SortedSet<String> changedFiles, final PendingConfigurations pending) {
+        final IProject project = request.getProject();
+        final URL ruleSet = request.getRuleSet();
+        final String configurationName = request.getConfigurationName();
         try {
             final IProjectConfiguration projectConfig = ProjectConfigurationFactory.getConfiguration(project);
             final ProjectConfigurationWorkingCopy workingCopy = new ProjectConfigurationWorkingCopy(projectConfig);
             workingCopy.setUseSimpleConfig(false);
 
-            monitor.worked(1);
-            final ICheckConfiguration checkConfig = createOrUpdateLocalCheckConfiguration(project, workingCopy,
-                    ruleSet, configurationName);
-
-            removeAndAddNewFileSet(project, compileSource, workingCopy, checkConfig);
-
+            ICheckConfiguration checkConfig = null;
+            if (ruleSet != null && localRuleSet != null
+                    && getPreference(PreferenceConstants.SHARE_GLOBAL_CONFIGURATIONS)) {
+                checkConfig = getOrCreateGlobalCheckConfiguration(ruleSet, localRuleSet, request.getProperties(),
+                        configurationName, pending);
+            }
             if (checkConfig != null) {
-                addCustomProperties(properties, checkConfig);
+                // the local configuration is replaced by the shared one
+                createOrUpdateLocalCheckConfiguration(project, workingCopy, null, configurationName);
+            } else {
+                checkConfig = createOrUpdateLocalCheckConfiguration(project, workingCopy, ruleSet,
+                        configurationName);
+                if (checkConfig != null) {
+                    addCustomProperties(request.getProperties(), checkConfig);
+                }
             }
 
-            monitor.worked(1);
-            if (workingCopy.isDirty()) {
-                workingCopy.store();
-            }
-            CheckstyleBuilder.buildProject(project);
+            removeAndAddNewFileSet(request, changedFiles, workingCopy, checkConfig);
+
+            final String digest = computeDigest(ruleSet, localRuleSet, workingCopy, checkConfig, configurationName);
+            pending.projects.add(new PendingProjectConfiguration(project, workingCopy, digest));
 
         } catch (CheckstylePluginException cpe) {
             MavenLogger.log("Failed to configure Checkstyle plugin", cpe);
@@ -249,13 +783,72 @@ public class CheckstyleProjectConfigurator implements ICheckstyleProjectConfigur
     }
 
     /**
-     * Check if maven-checkstyle is added/removed.
+     * Store the pending global configurations once, then each pending
+     * project configuration once, and schedule a Checkstyle build of the
+     * projects whose effective configuration changed. The caller holds the
+     * rules of the projects.
+     * 
+     * @return the projects for which a Checkstyle build was scheduled
+     */
+    private List<IProject> storeProjectConfigurations(final PendingConfigurations pending,
+            final IProgressMonitor monitor) throws CoreException {
+        final List<IProject> changed = new ArrayList<IProject>();
+        monitor.beginTask("Store Checkstyle configurations", pending.projects.size());
+        try {
+            storeGlobalConfigurations(pending);
+        } catch (CheckstylePluginException cpe) {
+            MavenLogger.log("Failed to register global Checkstyle configurations", cpe);
+            monitor.done();
+            return changed;
+        }
+        try {
+            for (final PendingProjectConfiguration projectConfig : pending.projects) {
+                final IProject project = projectConfig.project;
+                try {
+                    final ICheckConfigurationWorkingSet workingSet = projectConfig.workingCopy
+                            .getLocalCheckConfigWorkingSet();
+                    final long storeStart = Metrics.start();
+                    if (workingSet.isDirty()) {
+                        workingSet.store();
+                    }
+                    if (projectConfig.workingCopy.isDirty()) {
+                        projectConfig.workingCopy.store();
+                    }
+                    Metrics.stop(Metrics.CHECKSTYLE_STORE, storeStart);
+                } catch (CheckstylePluginException cpe) {
+                    MavenLogger.log("Failed to configure Checkstyle plugin", cpe);
+                    continue;
+                } finally {
+                    monitor.worked(1);
+                }
+                final String digest = projectConfig.digest;
+                if (digest != null && digest.equals(project.getPersistentProperty(CONFIGURATION_DIGEST))) {
+                    continue;
+                }
+                Activator.getDefault().getBuildScheduler().requestBuild(project);
+                Metrics.rebuild(Metrics.CHECKSTYLE_BUILDER);
+                project.setPersistentProperty(CONFIGURATION_DIGEST, digest);
+                changed.add(project);
+            }
+        } finally {
+            monitor.done();
+        }
+        return changed;
+    }
+
+    private boolean getPreference(final String name) {
+        return Activator.getDefault().getPreferenceStore().getBoolean(name);
+    }
+
+    /**
+     * Check if maven-checkstyle is added/removed, or if its configuration
+     * changed.
      * 
      * @param current
      *            plugin in current MavenProject
      * @param old
      *            plugin in previous MavenProject
-     * @return true if maven-checkstyle is added/removed
+     * @return true if maven-checkstyle is added/removed or reconfigured
      */
     public boolean pluginChanged(final Plugin current, final Plugin old) {
         // plugin added
@@ -266,10 +859,41 @@ public class CheckstyleProjectConfigurator implements ICheckstyleProjectConfigur
         if (current == null && old != null) {
             return true;
         }
+        // plugin reconfigured
+        if (current != null && old != null) {
+            return !getPluginFingerprint(current).equals(getPluginFingerprint(old));
+        }
         // no change
         return false;
     }
 
+    /**
+     * Return a digest of the maven-checkstyle-plugin version, of the
+     * parameters the configuration depends on, and of the plugin dependencies
+     * configLocation may be resolved from, computed without resolving any URL
+     * or artifact.
+     */
+    public String getPluginFingerprint(final Plugin plugin) {
+        final ConfigurationDigest digest = new ConfigurationDigest();
+        digest.add(plugin.getVersion());
+        final Object configuration = plugin.getConfiguration();
+        for (final String parameter : FINGERPRINT_PARAMETERS) {
+            String value = null;
+            if (configuration instanceof Xpp3Dom) {
+                final Xpp3Dom parameterValue = ((Xpp3Dom) configuration).getChild(parameter);
+                if (parameterValue != null) {
+                    value = parameterValue.getValue();
+                }
+            }
+            digest.add(value);
+        }
+        for (final Object object : plugin.getDependencies()) {
+            final Dependency dependency = (Dependency) object;
+            digest.add(dependency.getGroupId() + ":" + dependency.getArtifactId() + ":" + dependency.getVersion());
+        }
+        return digest.toHex();
+    }
+
     /**
      * Check if update of checkstyle configuratrion is needed.
      * 
@@ -294,4 +918,64 @@ public class CheckstyleProjectConfigurator implements ICheckstyleProjectConfigur
         }
         return false;
     }
+
+    /**
+     * Configurations of a batch applied in memory, not stored yet.
+     */
+    private static class PendingConfigurations {
+
+        /** New global configurations by name, registered when stored. **/
+        private final Map<String, CheckConfigurationWorkingCopy> globalConfigurations = new HashMap<String, CheckConfigurationWorkingCopy>();
+
+        private final List<PendingProjectConfiguration> projects = new ArrayList<PendingProjectConfiguration>();
+
+        private ICheckConfigurationWorkingSet globalWorkingSet;
+
+        private ICheckConfigurationWorkingSet getGlobalWorkingSet() {
+            if (globalWorkingSet == null) {
+                globalWorkingSet = CheckConfigurationFactory.newWorkingSet();
+            }
+            return globalWorkingSet;
+        }
+    }
+
+    /**
+     * Project configuration applied in memory, with the digest of its
+     * effective configuration.
+     */
+    private static class PendingProjectConfiguration {
+
+        private final IProject project;
+
+        private final ProjectConfigurationWorkingCopy workingCopy;
+
+        private final String digest;
+
+        PendingProjectConfiguration(final IProject project, final ProjectConfigurationWorkingCopy workingCopy,
+                final String digest) {
+            this.project = project;
+            this.workingCopy = workingCopy;
+            this.digest = digest;
+        }
+    }
+
+    /**
+     * Apply again the last configuration of the projects whose changed files
+     * moved, so their file set follows the commits.
+     */
+    private class DeltaScopeUpdater implements IDeltaScopeListener {
+
+        private final ConcurrentMap<IProject, CheckstyleConfigurationRequest> requests = new ConcurrentHashMap<IProject, CheckstyleConfigurationRequest>();
+
+        public void changedFilesUpdated(final IProject project, final SortedSet<String> changedFiles) {
+            final CheckstyleConfigurationRequest request = requests.get(project);
+            if (request != null) {
+                try {
+                    updateProjectConfiguration(request, new NullProgressMonitor());
+                } catch (CoreException e) {
+                    MavenLogger.log("Failed to update Checkstyle file set of " + project.getName(), e);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,113 @@
+package org.eclipse.checkstyle.configurator.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.eclipsecs.core.config.ResolvableProperty;
+import net.sf.eclipsecs.core.projectconfig.FileMatchPattern;
+import net.sf.eclipsecs.core.projectconfig.FileSet;
+
+/**
+ * Digest of an effective Checkstyle configuration: configuration name,
+ * ruleset content, resolvable properties and file set patterns. Two equal
+ * digests produce the same Checkstyle markers.
+ * 
+ * @author Pierre BRUNIN
+ */
+public class ConfigurationDigest {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest digest;
+
+    public ConfigurationDigest() {
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public ConfigurationDigest add(final String value) {
+        try {
+            digest.update(String.valueOf(value).getBytes("UTF-8"));
+            digest.update((byte) 0);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Add content of the ruleset.
+     * 
+     * @throws IOException
+     *             if ruleset can't be read
+     */
+    public ConfigurationDigest addContent(final URL ruleSet) throws IOException {
+        if (ruleSet == null) {
+            return add((String) null);
+        }
+        final URLConnection connection = ruleSet.openConnection();
+        // don't keep jar files open
+        connection.setUseCaches(false);
+        final InputStream inputStream = connection.getInputStream();
+        try {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } finally {
+            inputStream.close();
+        }
+        return this;
+    }
+
+    /**
+     * Add properties, regardless of their order.
+     */
+    public ConfigurationDigest addProperties(final List<ResolvableProperty> properties) {
+        final List<String> entries = new ArrayList<String>();
+        for (final ResolvableProperty property : properties) {
+            entries.add(property.getPropertyName() + "=" + property.getValue());
+        }
+        Collections.sort(entries);
+        for (final String entry : entries) {
+            add(entry);
+        }
+        return this;
+    }
+
+    public ConfigurationDigest addFileSets(final List<FileSet> fileSets) {
+        for (final FileSet fileSet : fileSets) {
+            add(fileSet.getName());
+            add(String.valueOf(fileSet.isEnabled()));
+            for (final FileMatchPattern pattern : fileSet.getFileMatchPatterns()) {
+                add((pattern.isIncludePattern() ? "+" : "-") + pattern.getMatchPattern());
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Return the digest as hexadecimal. The digest is reset.
+     */
+    public String toHex() {
+        final byte[] bytes = digest.digest();
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,268 @@
+package org.eclipse.checkstyle.configurator.impl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import org.eclipse.configurator.metrics.Metrics;
+
+/**
+ * Local copies of the Checkstyle rulesets used by configured projects, keyed
+ * by ruleset location. The copies are refreshed when a project is
+ * configured, so Checkstyle builds never access the network.
+ * <p>
+ * Remote rulesets are kept with the ETag / Last-Modified of the last
+ * response: a copy younger than the freshness delay is used as it is, an
+ * older one is revalidated with a conditional GET, so the modules of a
+ * reactor sharing a configLocation download it once. Copies no configuration
+ * references anymore are deleted by the {@link RuleSetCacheCleaner}.
+ * 
+ * @author Pierre BRUNIN
+ */
+public class RuleSetCache {
+
+    /** Delay during which a remote copy is used without revalidation. **/
+    public static final long DEFAULT_FRESHNESS = 60 * 1000L;
+
+    private static final String DATA_SUFFIX = ".xml";
+
+    private static final String META_SUFFIX = ".properties";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final String ETAG = "etag";
+
+    private static final String LAST_MODIFIED = "lastModified";
+
+    private static final String FETCHED_AT = "fetchedAt";
+
+    /** Delay before deleting the copies no configuration references. **/
+    private static final long UNREFERENCED_DELAY = 10 * 60 * 1000L;
+
+    private final File directory;
+
+    private final long freshness;
+
+    public RuleSetCache(final File directory) {
+        this(directory, DEFAULT_FRESHNESS);
+    }
+
+    public RuleSetCache(final File directory, final long freshness) {
+        this.directory = directory;
+        this.freshness = freshness;
+    }
+
+    /**
+     * Return the local copy of a ruleset location, which may not exist yet.
+     */
+    public File getFile(final String location) {
+        return new File(directory, getBaseName(location) + DATA_SUFFIX);
+    }
+
+    private File getMetadataFile(final String location) {
+        return new File(directory, getBaseName(location) + META_SUFFIX);
+    }
+
+    private String getBaseName(final String location) {
+        final ConfigurationDigest digest = new ConfigurationDigest();
+        digest.add(location);
+        return digest.toHex();
+    }
+
+    /**
+     * Return the URL of the local copy of a ruleset, copying it if missing.
+     */
+    public URL getURL(final String location) throws IOException {
+        final File file = getFile(location);
+        if (!file.isFile()) {
+            refresh(new URL(location));
+        }
+        try {
+            return file.toURI().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Copy the current content of the ruleset into its local copy. A fresh
+     * copy of a remote ruleset is returned as it is, an older one is
+     * revalidated.
+     * 
+     * @return the local copy
+     */
+    public File refresh(final URL ruleSet) throws IOException {
+        final String location = ruleSet.toExternalForm();
+        final File file = getFile(location);
+        final File meta = getMetadataFile(location);
+        final Properties validators = file.isFile() ? readMetadata(meta) : null;
+        final long now = System.currentTimeMillis();
+        if (validators != null && now - getLong(validators, FETCHED_AT) < freshness) {
+            Metrics.hit(Metrics.CHECKSTYLE_RULESET_CACHE);
+            file.setLastModified(now);
+            return file;
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create ruleset cache " + directory);
+        }
+        final URLConnection connection = ruleSet.openConnection();
+        // don't keep jar files open
+        connection.setUseCaches(false);
+        if (connection instanceof HttpURLConnection) {
+            if (validators != null) {
+                if (validators.getProperty(ETAG) != null) {
+                    connection.setRequestProperty("If-None-Match", validators.getProperty(ETAG));
+                }
+                if (getLong(validators, LAST_MODIFIED) > 0) {
+                    connection.setIfModifiedSince(getLong(validators, LAST_MODIFIED));
+                }
+            }
+            final int status = ((HttpURLConnection) connection).getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && validators != null) {
+                Metrics.hit(Metrics.CHECKSTYLE_RULESET_CACHE);
+                validators.setProperty(FETCHED_AT, String.valueOf(now));
+                writeMetadata(meta, validators);
+                file.setLastModified(now);
+                return file;
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                ((HttpURLConnection) connection).disconnect();
+                throw new IOException("Unexpected response " + status + " for " + ruleSet);
+            }
+        }
+        Metrics.miss(Metrics.CHECKSTYLE_RULESET_CACHE);
+        copy(connection, file);
+        if (connection instanceof HttpURLConnection) {
+            final Properties properties = new Properties();
+            if (connection.getHeaderField("ETag") != null) {
+                properties.setProperty(ETAG, connection.getHeaderField("ETag"));
+            }
+            properties.setProperty(LAST_MODIFIED, String.valueOf(connection.getLastModified()));
+            properties.setProperty(FETCHED_AT, String.valueOf(now));
+            writeMetadata(meta, properties);
+        }
+        return file;
+    }
+
+    private void copy(final URLConnection connection, final File file) throws IOException {
+        final File temp = File.createTempFile(file.getName(), TEMP_SUFFIX, directory);
+        try {
+            final InputStream inputStream = connection.getInputStream();
+            try {
+                final OutputStream outputStream = new FileOutputStream(temp);
+                try {
+                    final byte[] buffer = new byte[8192];
+                    long total = 0;
+                    int read;
+                    while ((read = inputStream.read(buffer)) != -1) {
+                        outputStream.write(buffer, 0, read);
+                        total += read;
+                    }
+                    Metrics.addBytes(Metrics.CHECKSTYLE_RULESET_BYTES, total);
+                } finally {
+                    outputStream.close();
+                }
+            } finally {
+                inputStream.close();
+            }
+            replace(temp, file);
+        } finally {
+            if (temp.exists()) {
+                temp.delete();
+            }
+        }
+    }
+
+    /* return the properties of a metadata file, or null if it can't be read */
+    private Properties readMetadata(final File meta) {
+        if (!meta.isFile()) {
+            return null;
+        }
+        final Properties properties = new Properties();
+        try {
+            final InputStream inputStream = new FileInputStream(meta);
+            try {
+                properties.load(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return properties;
+    }
+
+    private void writeMetadata(final File meta, final Properties properties) throws IOException {
+        final File temp = File.createTempFile(meta.getName(), TEMP_SUFFIX, directory);
+        try {
+            final OutputStream outputStream = new FileOutputStream(temp);
+            try {
+                properties.store(outputStream, null);
+            } finally {
+                outputStream.close();
+            }
+            replace(temp, meta);
+        } finally {
+            if (temp.exists()) {
+                temp.delete();
+            }
+        }
+    }
+
+    private void replace(final File temp, final File file) throws IOException {
+        if (!temp.renameTo(file)) {
+            // renaming over an existing file fails on some platforms
+            if (!file.delete() || !temp.renameTo(file)) {
+                throw new IOException("Failed to replace " + file);
+            }
+        }
+    }
+
+    private long getLong(final Properties properties, final String name) {
+        try {
+            return Long.parseLong(properties.getProperty(name, "0"));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * Delete the copies of the locations no configuration references, and
+     * the temporary files left by a crash. Files written recently are kept,
+     * as they may belong to a configuration being applied.
+     * 
+     * @param locations
+     *            the ruleset locations still referenced
+     * @return number of deleted files
+     */
+    public int deleteUnreferenced(final Set<String> locations) {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        final Set<String> referenced = new HashSet<String>();
+        for (final String location : locations) {
+            referenced.add(getFile(location).getName());
+            referenced.add(getMetadataFile(location).getName());
+        }
+        final long now = System.currentTimeMillis();
+        int deleted = 0;
+        for (final File file : files) {
+            if (!referenced.contains(file.getName()) && now - file.lastModified() > UNREFERENCED_DELAY
+                    && file.delete()) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+}
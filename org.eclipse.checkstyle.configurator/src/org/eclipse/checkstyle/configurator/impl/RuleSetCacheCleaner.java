@@ -0,0 +1,74 @@
+package org.eclipse.checkstyle.configurator.impl;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.sf.eclipsecs.core.config.CheckConfigurationFactory;
+import net.sf.eclipsecs.core.config.ICheckConfiguration;
+import net.sf.eclipsecs.core.projectconfig.ProjectConfigurationFactory;
+import net.sf.eclipsecs.core.util.CheckstylePluginException;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.maven.ide.eclipse.core.MavenLogger;
+
+/**
+ * Delete the copies of the {@link RuleSetCache} no Checkstyle configuration
+ * references anymore, global or local to a project.
+ * <p>
+ * Scheduled when a batch changed the configuration of projects, with a delay
+ * so a reactor moving to a new ruleset is scanned once.
+ *
+ * @author Pierre BRUNIN
+ */
+public class RuleSetCacheCleaner extends Job {
+
+    /** Delay between the last request and the scan of the configurations. **/
+    public static final long DELAY = 60 * 1000L;
+
+    private final RuleSetCache ruleSetCache;
+
+    public RuleSetCacheCleaner(final RuleSetCache ruleSetCache) {
+        super("Clean Checkstyle rulesets");
+        this.ruleSetCache = ruleSetCache;
+        setSystem(true);
+        setPriority(DECORATE);
+    }
+
+    @Override
+    protected IStatus run(final IProgressMonitor monitor) {
+        final Set<String> locations = new HashSet<String>();
+        addLocations(CheckConfigurationFactory.getCheckConfigurations(), locations);
+        for (final IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+            if (monitor.isCanceled()) {
+                return Status.CANCEL_STATUS;
+            }
+            if (!project.isAccessible()) {
+                continue;
+            }
+            try {
+                addLocations(ProjectConfigurationFactory.getConfiguration(project).getLocalCheckConfigurations(),
+                        locations);
+            } catch (CheckstylePluginException e) {
+                // keep everything rather than deleting a ruleset in use
+                MavenLogger.log("Failed to read the Checkstyle configuration of " + project.getName(), e);
+                return Status.OK_STATUS;
+            }
+        }
+        ruleSetCache.deleteUnreferenced(locations);
+        return Status.OK_STATUS;
+    }
+
+    private void addLocations(final List<? extends ICheckConfiguration> checkConfigs, final Set<String> locations) {
+        for (final ICheckConfiguration checkConfig : checkConfigs) {
+            if (CachedConfigurationType.INTERNAL_NAME.equals(checkConfig.getType().getInternalName())) {
+                locations.add(checkConfig.getLocation());
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.eclipse.checkstyle.configurator.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.configurator.metrics.Metrics;
+import org.maven.ide.eclipse.core.MavenLogger;
+
+/**
+ * Locate a ruleset (or properties) location by trying, in order, the
+ * filesystem, an URL and the jars of the plugin dependencies.
+ * <p>
+ * Each jar is indexed once from its central directory, and the index is kept
+ * while the jar is not modified. Located URLs are memoized by (location, jar
+ * set), so locating the same configLocation again does not probe anything.
+ * No stream nor jar file is kept open.
+ *
+ * @author Pierre BRUNIN
+ */
+public class RuleSetLocator {
+
+    private final ConcurrentMap<String, URL> locations = new ConcurrentHashMap<String, URL>();
+
+    private final ConcurrentMap<File, JarIndex> indexes = new ConcurrentHashMap<File, JarIndex>();
+
+    /**
+     * Return the URL of a location, or null if it can't be found.
+     *
+     * @param location
+     *            a file, an URL or a resource path in one of the jars
+     * @param jars
+     *            plugin dependency jars
+     */
+    public URL locate(final String location, final List<File> jars) {
+        final String key = getKey(location, jars);
+        URL url = locations.get(key);
+        if (url != null) {
+            Metrics.hit(Metrics.CHECKSTYLE_RULESET_LOCATOR);
+        } else {
+            Metrics.miss(Metrics.CHECKSTYLE_RULESET_LOCATOR);
+            url = probe(location, jars);
+            if (url != null) {
+                locations.put(key, url);
+            }
+        }
+        return url;
+    }
+
+    /* the jar stamps are part of the key, so rebuilt jars are probed again */
+    private String getKey(final String location, final List<File> jars) {
+        final StringBuilder key = new StringBuilder(location);
+        for (final File jar : jars) {
+            key.append('\n').append(jar.getPath()).append(':').append(jar.lastModified()).append(':').append(
+                    jar.length());
+        }
+        return key.toString();
+    }
+
+    private URL probe(final String location, final List<File> jars) {
+        // Try filesystem
+        final File file = new File(location);
+        if (file.exists()) {
+            try {
+                return file.toURI().toURL();
+            } catch (MalformedURLException e) {
+                // fall through
+            }
+        }
+
+        // try a url
+        try {
+            final URL url = new URL(location);
+            final InputStream inputStream = url.openStream();
+            inputStream.close();
+            return url;
+        } catch (MalformedURLException e) {
+            // Not a valid URL
+        } catch (IOException e) {
+            // Valid URL but does not exist
+        }
+
+        // try a resource of the plugin dependencies
+        final String entryName = location.startsWith("/") ? location.substring(1) : location;
+        for (final File jar : jars) {
+            if (getIndex(jar).contains(entryName)) {
+                try {
+                    return new URL("jar:" + jar.toURI().toURL().toExternalForm() + "!/" + entryName);
+                } catch (MalformedURLException e) {
+                    MavenLogger.log("Failed to build URL of " + entryName + " in " + jar, e);
+                }
+            }
+        }
+        return null;
+    }
+
+    private JarIndex getIndex(final File jar) {
+        final JarIndex index = indexes.get(jar);
+        if (index != null && index.isCurrent(jar)) {
+            return index;
+        }
+        final JarIndex created = new JarIndex(jar);
+        indexes.put(jar, created);
+        return created;
+    }
+
+    /**
+     * Forget memoized locations and jar indexes.
+     */
+    public void clear() {
+        locations.clear();
+        indexes.clear();
+    }
+
+    /**
+     * Entry names of a jar, as read from its central directory.
+     */
+    private static final class JarIndex {
+
+        private final long lastModified;
+
+        private final long length;
+
+        private final Set<String> entries;
+
+        JarIndex(final File jar) {
+            lastModified = jar.lastModified();
+            length = jar.length();
+            entries = read(jar);
+        }
+
+        boolean isCurrent(final File jar) {
+            return jar.lastModified() == lastModified && jar.length() == length;
+        }
+
+        boolean contains(final String entryName) {
+            return entries.contains(entryName);
+        }
+
+        private static Set<String> read(final File jar) {
+            final Set<String> entries = new HashSet<String>();
+            try {
+                final ZipFile zipFile = new ZipFile(jar);
+                try {
+                    final Enumeration<? extends ZipEntry> enumeration = zipFile.entries();
+                    while (enumeration.hasMoreElements()) {
+                        final ZipEntry entry = enumeration.nextElement();
+                        if (!entry.isDirectory()) {
+                            entries.add(entry.getName());
+                        }
+                    }
+                } finally {
+                    zipFile.close();
+                }
+            } catch (IOException e) {
+                MavenLogger.log("Failed to index " + jar, e);
+                return Collections.emptySet();
+            }
+            return entries;
+        }
+    }
+}
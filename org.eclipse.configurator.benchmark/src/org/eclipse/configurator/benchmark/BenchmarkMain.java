@@ -0,0 +1,32 @@
+package org.eclipse.configurator.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the benchmarks matching the arguments, or all of them.
+ * <p>
+ * Launch as a Java Application from the workspace, so the forked JVMs get
+ * the plug-in dependencies on their classpath.
+ *
+ * @author Pierre BRUNIN
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        final OptionsBuilder builder = new OptionsBuilder();
+        if (args.length == 0) {
+            builder.include(BenchmarkMain.class.getPackage().getName() + ".*Benchmark");
+        }
+        for (final String include : args) {
+            builder.include(include);
+        }
+        final Options options = builder.build();
+        new Runner(options).run();
+    }
+}
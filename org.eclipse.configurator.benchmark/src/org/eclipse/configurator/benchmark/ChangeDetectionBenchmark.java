@@ -0,0 +1,107 @@
+package org.eclipse.configurator.benchmark;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.model.Plugin;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.eclipse.checkstyle.configurator.impl.CheckstyleProjectConfigurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the change detection run on each mavenProjectChanged event:
+ * {@link CheckstyleProjectConfigurator#pluginChanged(Plugin, Plugin)} and
+ * {@link CheckstyleProjectConfigurator#urlChanged(URL, URL)}.
+ *
+ * @author Pierre BRUNIN
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChangeDetectionBenchmark {
+
+    private final CheckstyleProjectConfigurator configurator = new CheckstyleProjectConfigurator();
+
+    private Plugin plugin;
+
+    private Plugin same;
+
+    private Plugin reconfigured;
+
+    private URL fileURL;
+
+    private URL otherFileURL;
+
+    private URL httpURL;
+
+    private URL otherHttpURL;
+
+    @Setup
+    public void setUp() throws MalformedURLException {
+        plugin = createPlugin("2.6", "sun_checks.xml");
+        same = createPlugin("2.6", "sun_checks.xml");
+        reconfigured = createPlugin("2.6", "checkstyle.xml");
+        fileURL = new URL("file:/workspace/project/checkstyle.xml");
+        otherFileURL = new URL("file:/workspace/project/checkstyle.xml");
+        httpURL = new URL("http://127.0.0.1:9000/profiles/export?format=checkstyle&language=java");
+        otherHttpURL = new URL("http://127.0.0.1:9000/profiles/export?format=checkstyle&language=java");
+    }
+
+    /**
+     * POM reloaded without any change of the plugin.
+     */
+    @Benchmark
+    public boolean pluginUnchanged() {
+        return configurator.pluginChanged(same, plugin);
+    }
+
+    /**
+     * Plugin pointing to another configuration.
+     */
+    @Benchmark
+    public boolean pluginReconfigured() {
+        return configurator.pluginChanged(reconfigured, plugin);
+    }
+
+    @Benchmark
+    public boolean fileURLUnchanged() {
+        return configurator.urlChanged(otherFileURL, fileURL);
+    }
+
+    @Benchmark
+    public boolean httpURLUnchanged() {
+        return configurator.urlChanged(otherHttpURL, httpURL);
+    }
+
+    private static Plugin createPlugin(final String version, final String configLocation) {
+        final Plugin plugin = new Plugin();
+        plugin.setGroupId("org.apache.maven.plugins");
+        plugin.setArtifactId("maven-checkstyle-plugin");
+        plugin.setVersion(version);
+        final Xpp3Dom configuration = new Xpp3Dom("configuration");
+        addChild(configuration, "configLocation", configLocation);
+        addChild(configuration, "propertiesLocation", "checkstyle.properties");
+        addChild(configuration, "propertyExpansion", "checkstyle.cache.file=target/cache");
+        plugin.setConfiguration(configuration);
+        return plugin;
+    }
+
+    private static void addChild(final Xpp3Dom configuration, final String name, final String value) {
+        final Xpp3Dom child = new Xpp3Dom(name);
+        child.setValue(value);
+        configuration.addChild(child);
+    }
+}
@@ -0,0 +1,101 @@
+package org.eclipse.configurator.benchmark;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.eclipsecs.core.config.ICheckConfiguration;
+import net.sf.eclipsecs.core.projectconfig.FileSet;
+import net.sf.eclipsecs.core.util.CheckstylePluginException;
+
+import org.eclipse.checkstyle.configurator.impl.CheckstyleProjectConfigurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of building the Checkstyle FileSet of projects with many source
+ * roots.
+ *
+ * @author Pierre BRUNIN
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompileFileSetBenchmark {
+
+    @Param( { "1", "10", "100", "1000" })
+    public int sourceRoots;
+
+    private final Configurator configurator = new Configurator();
+
+    private URI basedir;
+
+    private List<String> compileSource;
+
+    @Setup
+    public void setUp() {
+        final File project = new File(System.getProperty("java.io.tmpdir"), "benchmark-project");
+        basedir = project.toURI();
+        compileSource = new ArrayList<String>();
+        for (int i = 0; i < sourceRoots; i++) {
+            compileSource.add(new File(project, "module" + i + "/src/main/java").getAbsolutePath());
+        }
+    }
+
+    /**
+     * Patterns relative to the project, as configured by default.
+     */
+    @Benchmark
+    public FileSet compileFileSet() throws CheckstylePluginException {
+        return configurator.generateCompileFileSet(compileSource, basedir, CheckstyleProjectConfigurator.JAVA_SOURCE,
+                null);
+    }
+
+    /**
+     * Anchored patterns of the scoped file sets.
+     */
+    @Benchmark
+    public FileSet scopedFileSet() throws CheckstylePluginException {
+        return configurator.generateScopedFileSet(configurator.toRelativePaths(compileSource, basedir),
+                CheckstyleProjectConfigurator.JAVA_SOURCE, null);
+    }
+
+    /**
+     * Opens the protected generators to the benchmark.
+     */
+    private static final class Configurator extends CheckstyleProjectConfigurator {
+
+        @Override
+        protected FileSet generateCompileFileSet(final List<String> compileSource, final URI basedir,
+                final String fileSetName, final ICheckConfiguration checkConfig)
+                throws CheckstylePluginException {
+            return super.generateCompileFileSet(compileSource, basedir, fileSetName, checkConfig);
+        }
+
+        @Override
+        protected FileSet generateScopedFileSet(final List<String> relativeRoots, final String fileSetName,
+                final ICheckConfiguration checkConfig)
+                throws CheckstylePluginException {
+            return super.generateScopedFileSet(relativeRoots, fileSetName, checkConfig);
+        }
+
+        @Override
+        protected List<String> toRelativePaths(final List<String> sourceRoots, final URI basedir) {
+            return super.toRelativePaths(sourceRoots, basedir);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.eclipse.configurator.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.checkstyle.configurator.impl.RuleSetLocator;
+import org.maven.ide.eclipse.checkstyle.PropertiesCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of MavenCheckstyleProjectConfigurator.extractCustomProperties:
+ * locating the propertiesLocation and merging it with the propertyExpansion
+ * through the {@link RuleSetLocator} and the {@link PropertiesCache}.
+ *
+ * @author Pierre BRUNIN
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomPropertiesBenchmark {
+
+    /** Entries of the property file. */
+    @Param( { "10", "1000" })
+    public int entries;
+
+    private HttpStandIn host;
+
+    private URL fileURL;
+
+    private URL httpURL;
+
+    private String propertyExpansion;
+
+    private final PropertiesCache cache = new PropertiesCache();
+
+    private final RuleSetLocator locator = new RuleSetLocator();
+
+    @Setup
+    public void setUp() throws IOException {
+        final byte[] content = RuleSets.properties(entries);
+        fileURL = RuleSets.write(content, ".properties").toURI().toURL();
+        host = new HttpStandIn();
+        host.put("/checkstyle.properties", content);
+        httpURL = new URL(host.getBaseUrl() + "/checkstyle.properties");
+        propertyExpansion = "checkstyle.header.file=" + fileURL.getPath() + "\ncheckstyle.cache.file=target/cache";
+        // fill the caches
+        cache.get(fileURL, propertyExpansion);
+        cache.get(httpURL, propertyExpansion);
+        locator.locate(fileURL.toExternalForm(), Collections.<File> emptyList());
+    }
+
+    @TearDown
+    public void tearDown() {
+        host.stop();
+    }
+
+    /**
+     * Local property file read and merged.
+     */
+    @Benchmark
+    public Properties fileCold() throws IOException {
+        return new PropertiesCache().get(fileURL, propertyExpansion);
+    }
+
+    /**
+     * Local property file unchanged since the last configuration.
+     */
+    @Benchmark
+    public Properties fileWarm() throws IOException {
+        return cache.get(fileURL, propertyExpansion);
+    }
+
+    /**
+     * Remote property file downloaded and merged.
+     */
+    @Benchmark
+    public Properties httpCold() throws IOException {
+        return new PropertiesCache().get(httpURL, propertyExpansion);
+    }
+
+    /**
+     * Remote property file revalidated by a HEAD request.
+     */
+    @Benchmark
+    public Properties httpWarm() throws IOException {
+        return cache.get(httpURL, propertyExpansion);
+    }
+
+    /**
+     * propertyExpansion alone, without propertiesLocation.
+     */
+    @Benchmark
+    public Properties expansionOnly() throws IOException {
+        return cache.get(null, propertyExpansion);
+    }
+
+    /**
+     * propertiesLocation located again, as done for each module.
+     */
+    @Benchmark
+    public URL locate() {
+        return locator.locate(fileURL.toExternalForm(), Collections.<File> emptyList());
+    }
+}
@@ -0,0 +1,131 @@
+package org.eclipse.configurator.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process HTTP server standing in for a sonar host or a remote
+ * Checkstyle configuration, so network paths are measured without a
+ * network.
+ * <p>
+ * Resources are served with an ETag and a Last-Modified date, HEAD requests
+ * and conditional GET requests (If-None-Match) are answered like a real
+ * server would. A latency can be added to every response to stand for a
+ * remote host.
+ *
+ * @author Pierre BRUNIN
+ */
+public class HttpStandIn {
+
+    private final Map<String, byte[]> resources = new ConcurrentHashMap<String, byte[]>();
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private volatile long latency;
+
+    private final ExecutorService executor;
+
+    private final HttpServer server;
+
+    public HttpStandIn() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "HTTP stand-in");
+                // never keep the benchmark JVM alive
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            public void handle(final HttpExchange exchange) throws IOException {
+                serve(exchange);
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Serve content at a path (query included).
+     */
+    public void put(final String path, final byte[] content) {
+        resources.put(path, content);
+    }
+
+    /**
+     * Return the base URL of the server, without trailing '/'.
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Delay every response by the given milliseconds.
+     */
+    public void setLatency(final long latency) {
+        this.latency = latency;
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void serve(final HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (latency > 0) {
+                try {
+                    Thread.sleep(latency);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            final String query = exchange.getRequestURI().getRawQuery();
+            final String path = exchange.getRequestURI().getRawPath() + (query == null ? "" : "?" + query);
+            final byte[] content = resources.get(path);
+            if (content == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            final String etag = "\"" + Integer.toHexString(Arrays.hashCode(content)) + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Last-Modified", "Sun, 13 Mar 2011 07:06:40 GMT");
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, content.length);
+            final OutputStream outputStream = exchange.getResponseBody();
+            try {
+                outputStream.write(content);
+            } finally {
+                outputStream.close();
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.eclipse.configurator.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.checkstyle.configurator.impl.CheckstyleBuildScheduler;
+import org.eclipse.checkstyle.configurator.impl.CheckstyleConfigurationQueue;
+import org.eclipse.configurator.metrics.Metrics;
+import org.eclipse.configurator.metrics.MetricsRegistry;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+import org.maven.ide.eclipse.MavenPlugin;
+import org.maven.ide.eclipse.embedder.MavenModelManager;
+import org.maven.ide.eclipse.project.IMavenProjectImportResult;
+import org.maven.ide.eclipse.project.MavenProjectInfo;
+import org.maven.ide.eclipse.project.ProjectImportConfiguration;
+import org.sonar.ide.eclipse.Activator;
+import org.sonar.ide.eclipse.cache.ProfileKey;
+
+/**
+ * Headless load test of a reactor import: a synthetic reactor is imported
+ * in the workspace through m2eclipse, so SonarConfigurator and
+ * MavenCheckstyleProjectConfigurator configure every module against an
+ * in-process sonar host.
+ * <p>
+ * Reports the wall time until the builds are done, the HTTP requests per
+ * module and the rebuilds of each builder, followed by the phase metrics.
+ * Run with:
+ *
+ * <pre>
+ * eclipse -nosplash -data &lt;empty workspace&gt; -application org.eclipse.configurator.benchmark.importLoadTest
+ *     [-modules 100] [-latency 0] [-rules 100]
+ * </pre>
+ *
+ * The maven plugins of the reactor must be available in the local
+ * repository, or from a remote repository.
+ *
+ * @author Pierre BRUNIN
+ */
+public class ImportLoadTest implements IApplication {
+
+    public static final int DEFAULT_MODULES = 100;
+
+    public static final long DEFAULT_LATENCY = 0L;
+
+    public static final int DEFAULT_RULES = 100;
+
+    private static final String CONFIG_LOCATION = "/checkstyle.xml";
+
+    private int modules = DEFAULT_MODULES;
+
+    private long latency = DEFAULT_LATENCY;
+
+    private int rules = DEFAULT_RULES;
+
+    public Object start(final IApplicationContext context) throws Exception {
+        final String[] args = (String[]) context.getArguments().get(IApplicationContext.APPLICATION_ARGS);
+        for (int i = 0; args != null && i + 1 < args.length; i++) {
+            if ("-modules".equals(args[i])) {
+                modules = Integer.parseInt(args[++i]);
+            } else if ("-latency".equals(args[i])) {
+                latency = Long.parseLong(args[++i]);
+            } else if ("-rules".equals(args[i])) {
+                rules = Integer.parseInt(args[++i]);
+            }
+        }
+        run(System.out);
+        return EXIT_OK;
+    }
+
+    public void stop() {
+        // the import runs to completion
+    }
+
+    /**
+     * Import the reactor and print the report.
+     */
+    public void run(final PrintStream out) throws IOException, CoreException, InterruptedException {
+        final IProgressMonitor monitor = new NullProgressMonitor();
+        final HttpStandIn host = new HttpStandIn();
+        final File directory = RuleSets.createDirectory();
+        final List<IProject> projects = new ArrayList<IProject>();
+        try {
+            host.setLatency(latency);
+            host.put(new ProfileKey(host.getBaseUrl(), ReactorGenerator.SONAR_PROFILE, "checkstyle").getExportURL()
+                    .getFile(), RuleSets.checkstyle(rules));
+            host.put(new ProfileKey(host.getBaseUrl(), ReactorGenerator.SONAR_PROFILE, "pmd").getExportURL()
+                    .getFile(), RuleSets.pmd(rules));
+            host.put(CONFIG_LOCATION, RuleSets.checkstyle(rules));
+            final String configLocation = host.getBaseUrl() + CONFIG_LOCATION;
+            final ReactorGenerator generator = new ReactorGenerator(directory, host.getBaseUrl(), configLocation);
+            final List<File> poms = generator.generate(modules);
+
+            final MetricsRegistry registry = Metrics.getRegistry();
+            registry.reset();
+            final long requests = host.getRequestCount();
+            final long start = System.nanoTime();
+            projects.addAll(importProjects(generator.getParentPom(), poms, monitor));
+            Job.getJobManager().join(ResourcesPlugin.FAMILY_AUTO_BUILD, monitor);
+            Job.getJobManager().join(CheckstyleConfigurationQueue.class, monitor);
+            Job.getJobManager().join(CheckstyleBuildScheduler.class, monitor);
+            // the import is over, the next one loads the exports again
+            Activator.getDefault().getProfileLoader().endSession();
+            final long wallTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            final long moduleRequests = host.getRequestCount() - requests;
+
+            out.println("Import of " + modules + " modules, " + rules + " rules, " + latency + " ms latency");
+            out.println("  projects imported   " + projects.size());
+            out.println("  wall time           " + wallTime + " ms (" + wallTime / Math.max(modules, 1)
+                    + " ms/module)");
+            out.println("  HTTP requests       " + moduleRequests + " ("
+                    + String.format("%.2f", (double) moduleRequests / Math.max(modules, 1)) + "/module)");
+            out.println("  checkstyle rebuilds " + registry.getRebuilds(Metrics.CHECKSTYLE_BUILDER));
+            out.println("  pmd rebuilds        " + registry.getRebuilds(Metrics.PMD_BUILDER));
+            out.println(registry.report());
+        } finally {
+            host.stop();
+            for (final IProject project : projects) {
+                project.delete(false, true, monitor);
+            }
+            RuleSets.delete(directory);
+        }
+    }
+
+    private List<IProject> importProjects(final File parentPom, final List<File> poms, final IProgressMonitor monitor)
+            throws CoreException {
+        final MavenPlugin plugin = MavenPlugin.getDefault();
+        final MavenModelManager modelManager = plugin.getMavenModelManager();
+        final List<MavenProjectInfo> projectInfos = new ArrayList<MavenProjectInfo>(poms.size() + 1);
+        final MavenProjectInfo parent = new MavenProjectInfo("parent", parentPom, modelManager
+                .readMavenModel(parentPom), null);
+        projectInfos.add(parent);
+        for (final File pom : poms) {
+            final MavenProjectInfo module = new MavenProjectInfo(pom.getParentFile().getName(), pom, modelManager
+                    .readMavenModel(pom), parent);
+            parent.add(module);
+            projectInfos.add(module);
+        }
+        final List<IProject> projects = new ArrayList<IProject>(projectInfos.size());
+        for (final IMavenProjectImportResult result : plugin.getProjectConfigurationManager().importProjects(
+                projectInfos, new ProjectImportConfiguration(), monitor)) {
+            if (result.getProject() != null) {
+                projects.add(result.getProject());
+            }
+        }
+        return projects;
+    }
+}
@@ -0,0 +1,142 @@
+package org.eclipse.configurator.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic reactor of modules configured like a sonar analysed project:
+ * sonar-maven-plugin with sonar.profile and sonar.host.url, and
+ * maven-checkstyle-plugin with a remote configLocation.
+ *
+ * @author Pierre BRUNIN
+ */
+public class ReactorGenerator {
+
+    public static final String GROUP_ID = "org.eclipse.configurator.load";
+
+    public static final String SONAR_PROFILE = "Sonar way";
+
+    private final File basedir;
+
+    private final String sonarHostUrl;
+
+    private final String configLocation;
+
+    /**
+     * @param basedir
+     *            directory of the parent pom
+     * @param sonarHostUrl
+     *            sonar.host.url of the reactor
+     * @param configLocation
+     *            maven-checkstyle-plugin configLocation, may be null
+     */
+    public ReactorGenerator(final File basedir, final String sonarHostUrl, final String configLocation) {
+        this.basedir = basedir;
+        this.sonarHostUrl = sonarHostUrl;
+        this.configLocation = configLocation;
+    }
+
+    /**
+     * Write the parent pom and the given number of modules, each with one
+     * class.
+     *
+     * @return pom files of the modules
+     */
+    public List<File> generate(final int modules) throws IOException {
+        final List<File> poms = new ArrayList<File>(modules);
+        final StringBuilder moduleList = new StringBuilder();
+        for (int i = 0; i < modules; i++) {
+            final String artifactId = getArtifactId(i);
+            moduleList.append("    <module>").append(artifactId).append("</module>\n");
+            final File module = new File(basedir, artifactId);
+            poms.add(write(new File(module, "pom.xml"), modulePom(artifactId)));
+            write(new File(module, "src/main/java/org/load/" + toClassName(i) + ".java"), source(i));
+        }
+        write(getParentPom(), parentPom(moduleList));
+        return poms;
+    }
+
+    public File getParentPom() {
+        return new File(basedir, "pom.xml");
+    }
+
+    public static String getArtifactId(final int module) {
+        return "module" + module;
+    }
+
+    private String parentPom(final CharSequence modules) {
+        final StringBuilder pom = new StringBuilder();
+        pom.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n");
+        pom.append("  <modelVersion>4.0.0</modelVersion>\n");
+        pom.append("  <groupId>").append(GROUP_ID).append("</groupId>\n");
+        pom.append("  <artifactId>parent</artifactId>\n");
+        pom.append("  <version>1.0-SNAPSHOT</version>\n");
+        pom.append("  <packaging>pom</packaging>\n");
+        pom.append("  <properties>\n");
+        pom.append("    <sonar.profile>").append(SONAR_PROFILE).append("</sonar.profile>\n");
+        pom.append("    <sonar.host.url>").append(sonarHostUrl).append("</sonar.host.url>\n");
+        pom.append("  </properties>\n");
+        pom.append("  <modules>\n").append(modules).append("  </modules>\n");
+        pom.append("  <build>\n    <plugins>\n");
+        pom.append("      <plugin>\n");
+        pom.append("        <groupId>org.codehaus.mojo</groupId>\n");
+        pom.append("        <artifactId>sonar-maven-plugin</artifactId>\n");
+        pom.append("        <version>1.0-beta-2</version>\n");
+        pom.append("      </plugin>\n");
+        pom.append("      <plugin>\n");
+        pom.append("        <groupId>org.apache.maven.plugins</groupId>\n");
+        pom.append("        <artifactId>maven-checkstyle-plugin</artifactId>\n");
+        pom.append("        <version>2.6</version>\n");
+        pom.append("        <configuration>\n");
+        if (configLocation != null) {
+            pom.append("          <configLocation>").append(configLocation).append("</configLocation>\n");
+        }
+        pom.append("          <propertyExpansion>checkstyle.cache.file=target/checkstyle-cache</propertyExpansion>\n");
+        pom.append("        </configuration>\n");
+        pom.append("      </plugin>\n");
+        pom.append("    </plugins>\n  </build>\n");
+        pom.append("</project>\n");
+        return pom.toString();
+    }
+
+    private String modulePom(final String artifactId) {
+        final StringBuilder pom = new StringBuilder();
+        pom.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n");
+        pom.append("  <modelVersion>4.0.0</modelVersion>\n");
+        pom.append("  <parent>\n");
+        pom.append("    <groupId>").append(GROUP_ID).append("</groupId>\n");
+        pom.append("    <artifactId>parent</artifactId>\n");
+        pom.append("    <version>1.0-SNAPSHOT</version>\n");
+        pom.append("  </parent>\n");
+        pom.append("  <artifactId>").append(artifactId).append("</artifactId>\n");
+        pom.append("</project>\n");
+        return pom.toString();
+    }
+
+    private String source(final int module) {
+        return "package org.load;\n\npublic class " + toClassName(module) + " {\n\n"
+                + "    public int getModule() {\n        return " + module + ";\n    }\n}\n";
+    }
+
+    private static String toClassName(final int module) {
+        return "Module" + module;
+    }
+
+    private static File write(final File file, final String content) throws IOException {
+        final File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Unable to create " + parent);
+        }
+        final OutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(content.getBytes("UTF-8"));
+        } finally {
+            outputStream.close();
+        }
+        return file;
+    }
+}
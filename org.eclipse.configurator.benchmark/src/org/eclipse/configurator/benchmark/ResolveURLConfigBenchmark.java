@@ -0,0 +1,128 @@
+package org.eclipse.configurator.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.ide.eclipse.cache.CachedProfile;
+import org.sonar.ide.eclipse.cache.HostCircuitBreaker;
+import org.sonar.ide.eclipse.cache.ProfileCache;
+import org.sonar.ide.eclipse.cache.ProfileKey;
+import org.sonar.ide.eclipse.cache.ProfileLoader;
+
+/**
+ * Cost of SonarConfigurator.resolveURLConfig: loading a profile export
+ * through the {@link ProfileLoader} and the {@link ProfileCache}, from a
+ * sonar host standing in the benchmark JVM.
+ *
+ * @author Pierre BRUNIN
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolveURLConfigBenchmark {
+
+    /** Rules of the exported profile, up to large sonar profiles. */
+    @Param( { "10", "1000", "5000" })
+    public int rules;
+
+    private HttpStandIn host;
+
+    private ProfileKey key;
+
+    private File directory;
+
+    private ProfileLoader download;
+
+    private ProfileLoader revalidate;
+
+    private ProfileLoader fresh;
+
+    private ProfileLoader coalesced;
+
+    @Setup
+    public void setUp() throws IOException {
+        host = new HttpStandIn();
+        key = new ProfileKey(host.getBaseUrl(), "Sonar way", "checkstyle");
+        host.put(key.getExportURL().getFile(), RuleSets.checkstyle(rules));
+        directory = RuleSets.createDirectory();
+        download = newLoader(new File(directory, "download"), 0L, 0L);
+        revalidate = newLoader(new File(directory, "revalidate"), 0L, 0L);
+        fresh = newLoader(new File(directory, "fresh"), ProfileCache.DEFAULT_FRESHNESS * 1000, 0L);
+        coalesced = newLoader(new File(directory, "coalesced"), 0L, ProfileLoader.DEFAULT_SESSION * 1000);
+        // fill the caches
+        revalidate.load(key);
+        fresh.load(key);
+        coalesced.load(key);
+    }
+
+    /* the download cache never keeps anything */
+    @Setup(Level.Invocation)
+    public void clearDownloadCache() {
+        RuleSets.delete(new File(directory, "download"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        host.stop();
+        RuleSets.delete(directory);
+    }
+
+    /**
+     * Export not cached: full download and SHA-1 of the content.
+     */
+    @Benchmark
+    public CachedProfile download() throws IOException {
+        download.endSession();
+        return download.load(key);
+    }
+
+    /**
+     * Cached export too old: conditional GET answered by 304.
+     */
+    @Benchmark
+    public CachedProfile revalidate() throws IOException {
+        revalidate.endSession();
+        return revalidate.load(key);
+    }
+
+    /**
+     * Cached export still fresh: no network access.
+     */
+    @Benchmark
+    public CachedProfile fresh() throws IOException {
+        fresh.endSession();
+        return fresh.load(key);
+    }
+
+    /**
+     * Export loaded by a previous module of the same import.
+     */
+    @Benchmark
+    public CachedProfile coalesced() throws IOException {
+        return coalesced.load(key);
+    }
+
+    private static ProfileLoader newLoader(final File directory, final long freshness, final long session) {
+        final ProfileCache cache = new ProfileCache(directory, freshness, ProfileCache.DEFAULT_MAX_AGE,
+                ProfileCache.DEFAULT_MAX_ENTRIES, ProfileCache.DEFAULT_MAX_SIZE, ProfileCache.DEFAULT_CONNECT_TIMEOUT,
+                ProfileCache.DEFAULT_READ_TIMEOUT);
+        return new ProfileLoader(cache, new HostCircuitBreaker(), session);
+    }
+}
@@ -0,0 +1,123 @@
+package org.eclipse.configurator.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+
+/**
+ * Generated inputs of the benchmarks: Checkstyle and PMD rulesets shaped
+ * like sonar profile exports, and Checkstyle property files.
+ *
+ * @author Pierre BRUNIN
+ */
+public final class RuleSets {
+
+    /* PMD 4 rules, referenced in turn by generated rulesets */
+    private static final String[] PMD_RULES = { "rulesets/basic.xml/EmptyCatchBlock",
+            "rulesets/basic.xml/EmptyIfStmt", "rulesets/basic.xml/UnconditionalIfStatement",
+            "rulesets/unusedcode.xml/UnusedLocalVariable", "rulesets/unusedcode.xml/UnusedPrivateField",
+            "rulesets/imports.xml/UnusedImports", "rulesets/imports.xml/DuplicateImports",
+            "rulesets/design.xml/SimplifyBooleanReturns", "rulesets/strings.xml/StringToString",
+            "rulesets/naming.xml/SuspiciousHashcodeMethodName" };
+
+    private RuleSets() {
+    }
+
+    /**
+     * Checkstyle configuration with the given number of modules, each with a
+     * severity and a message property, like a sonar Checkstyle export.
+     */
+    public static byte[] checkstyle(final int rules) {
+        final StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append("<!DOCTYPE module PUBLIC \"-//Puppy Crawl//DTD Check Configuration 1.2//EN\" ");
+        xml.append("\"http://www.puppycrawl.com/dtds/configuration_1_2.dtd\">\n");
+        xml.append("<module name=\"Checker\">\n  <module name=\"TreeWalker\">\n");
+        for (int i = 0; i < rules; i++) {
+            xml.append("    <module name=\"RegexpSinglelineJava\">\n");
+            xml.append("      <property name=\"severity\" value=\"warning\"/>\n");
+            xml.append("      <property name=\"format\" value=\"rule").append(i).append("\\s+$\"/>\n");
+            xml.append("      <property name=\"message\" value=\"Generated rule ").append(i).append("\"/>\n");
+            xml.append("    </module>\n");
+        }
+        xml.append("  </module>\n</module>\n");
+        return toBytes(xml);
+    }
+
+    /**
+     * PMD ruleset with the given number of rule references, like a sonar PMD
+     * export.
+     */
+    public static byte[] pmd(final int rules) {
+        final StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append("<ruleset name=\"sonar\">\n  <description>Sonar profile</description>\n");
+        for (int i = 0; i < rules; i++) {
+            xml.append("  <rule ref=\"").append(PMD_RULES[i % PMD_RULES.length]).append("\">\n");
+            xml.append("    <priority>").append(1 + i % 5).append("</priority>\n");
+            xml.append("  </rule>\n");
+        }
+        xml.append("</ruleset>\n");
+        return toBytes(xml);
+    }
+
+    /**
+     * Property file with the given number of entries.
+     */
+    public static byte[] properties(final int entries) {
+        final StringBuilder properties = new StringBuilder();
+        for (int i = 0; i < entries; i++) {
+            properties.append("checkstyle.property").append(i).append('=').append("value").append(i).append('\n');
+        }
+        return toBytes(properties);
+    }
+
+    /**
+     * Write content in a temporary file deleted on exit.
+     */
+    public static File write(final byte[] content, final String suffix) throws IOException {
+        final File file = File.createTempFile("benchmark", suffix);
+        file.deleteOnExit();
+        final OutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(content);
+        } finally {
+            outputStream.close();
+        }
+        return file;
+    }
+
+    /**
+     * Create an empty temporary directory.
+     */
+    public static File createDirectory() throws IOException {
+        final File directory = File.createTempFile("benchmark", "");
+        if (!directory.delete() || !directory.mkdir()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        return directory;
+    }
+
+    /**
+     * Delete a directory and its content.
+     */
+    public static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static byte[] toBytes(final CharSequence content) {
+        try {
+            return content.toString().getBytes("UTF-8");
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.eclipse.configurator.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import net.sourceforge.pmd.RuleSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.ide.eclipse.api.SonarRuleSet;
+import org.sonar.ide.eclipse.cache.Hashes;
+import org.sonar.ide.eclipse.checkstyle.pmd.RuleSetStore;
+
+/**
+ * Cost of the PmdConfigurator.storeRuleSet write path: copying the sonar
+ * export into the shared {@link RuleSetStore} and parsing it. Storing the
+ * PMD project properties needs a running workbench and is left out.
+ *
+ * @author Pierre BRUNIN
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoreRuleSetBenchmark {
+
+    /** Rules of the exported profile, up to large sonar profiles. */
+    @Param( { "10", "1000", "5000" })
+    public int rules;
+
+    private File directory;
+
+    private SonarRuleSet ruleSet;
+
+    private RuleSetStore stored;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = RuleSets.createDirectory();
+        final byte[] content = RuleSets.pmd(rules);
+        final File export = RuleSets.write(content, ".xml");
+        ruleSet = new SonarRuleSet("pmd", export, Hashes.sha1(content));
+        stored = new RuleSetStore(new File(directory, "stored"));
+        stored.store(ruleSet);
+        stored.getRuleSet(ruleSet);
+    }
+
+    /* the write benchmark always finds an empty store */
+    @Setup(Level.Invocation)
+    public void clearStore() {
+        RuleSets.delete(new File(directory, "write"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        RuleSets.delete(directory);
+    }
+
+    /**
+     * Ruleset not stored yet: copy through a temporary file.
+     */
+    @Benchmark
+    public File write() throws IOException {
+        return new RuleSetStore(new File(directory, "write")).store(ruleSet);
+    }
+
+    /**
+     * Ruleset already stored by another project.
+     */
+    @Benchmark
+    public File shared() throws IOException {
+        return stored.store(ruleSet);
+    }
+
+    /**
+     * First parse of a ruleset.
+     */
+    @Benchmark
+    public RuleSet parse() throws IOException {
+        return new RuleSetStore(new File(directory, "parse")).getRuleSet(ruleSet);
+    }
+
+    /**
+     * Ruleset already parsed for another project, copied for this one.
+     */
+    @Benchmark
+    public RuleSet parsed() throws IOException {
+        return stored.getRuleSet(ruleSet);
+    }
+}
@@ -0,0 +1,69 @@
+package org.eclipse.configurator.delta;
+
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.Plugin;
+import org.osgi.framework.BundleContext;
+
+/**
+ * The activator class controls the plug-in life cycle
+ */
+public class Activator extends Plugin {
+
+	// The plug-in ID
+	public static final String PLUGIN_ID = "org.eclipse.configurator.delta"; //$NON-NLS-1$
+
+	// The shared instance
+	private static Activator plugin;
+
+	private volatile DeltaScopeTracker deltaScopeTracker;
+
+	/**
+	 * The constructor
+	 */
+	public Activator() {
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.eclipse.core.runtime.Plugin#start(org.osgi.framework.BundleContext)
+	 */
+	public void start(BundleContext context) throws Exception {
+		super.start(context);
+		plugin = this;
+		deltaScopeTracker = new DeltaScopeTracker();
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(deltaScopeTracker,
+				IResourceChangeEvent.POST_CHANGE);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.eclipse.core.runtime.Plugin#stop(org.osgi.framework.BundleContext)
+	 */
+	public void stop(BundleContext context) throws Exception {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(deltaScopeTracker);
+		deltaScopeTracker.cancel();
+		deltaScopeTracker = null;
+		plugin = null;
+		super.stop(context);
+	}
+
+	/**
+	 * Returns the shared instance
+	 *
+	 * @return the shared instance
+	 */
+	public static Activator getDefault() {
+		return plugin;
+	}
+
+	/**
+	 * Returns the job tracking the files changed against the git base ref
+	 *
+	 * @return the delta scope tracker
+	 */
+	public DeltaScopeTracker getDeltaScopeTracker() {
+		return deltaScopeTracker;
+	}
+
+}
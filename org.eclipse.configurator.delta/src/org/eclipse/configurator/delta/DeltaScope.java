@@ -0,0 +1,40 @@
+package org.eclipse.configurator.delta;
+
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * Entry point of the configurators restricting their analysis to the files
+ * changed against the git base ref: the preferences of the delta scope, and
+ * the tracker notifying the changes.
+ *
+ * @author Pierre BRUNIN
+ */
+public final class DeltaScope {
+
+    private DeltaScope() {
+    }
+
+    /**
+     * @return true if only the changed files are analyzed
+     */
+    public static boolean isEnabled() {
+        return Platform.getPreferencesService().getBoolean(Activator.PLUGIN_ID, PreferenceConstants.DELTA_SCOPE,
+                false, null);
+    }
+
+    /**
+     * @return the git branch, tag or commit the changed files are compared
+     *         with
+     */
+    public static String getBaseRef() {
+        return Platform.getPreferencesService().getString(Activator.PLUGIN_ID, PreferenceConstants.DELTA_BASE_REF,
+                PreferenceConstants.DEFAULT_BASE_REF, null);
+    }
+
+    /**
+     * @return the tracker shared by every configurator
+     */
+    public static DeltaScopeTracker getTracker() {
+        return Activator.getDefault().getDeltaScopeTracker();
+    }
+}
@@ -0,0 +1,215 @@
+package org.eclipse.configurator.delta;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Track the files of projects changed against a git base ref.
+ * <p>
+ * The job polls the timestamps of the git HEAD, index and refs, and listens
+ * to workspace changes; the changed files are read again from git only when
+ * one of them moved. Listeners are notified when the changed files are not
+ * the same anymore, so analysis scopes follow the commits.
+ *
+ * @author Pierre BRUNIN
+ */
+public class DeltaScopeTracker extends Job implements IResourceChangeListener {
+
+    /** Delay between two checks of the git repositories. */
+    public static final long POLL_INTERVAL = 5 * 1000L;
+
+    private final ConcurrentMap<Registration, Tracked> tracked = new ConcurrentHashMap<Registration, Tracked>();
+
+    public DeltaScopeTracker() {
+        super("Track changed files");
+        setSystem(true);
+        setPriority(DECORATE);
+    }
+
+    /**
+     * Start (or go on) tracking the changed files of a project.
+     *
+     * @return the files of the project changed against the base ref
+     * @throws IOException
+     *             if the project is not in a git work tree, or git fails
+     */
+    public SortedSet<String> track(final IProject project, final String baseRef, final IDeltaScopeListener listener)
+            throws IOException {
+        final IPath location = project.getLocation();
+        if (location == null) {
+            throw new IOException(project.getName() + " has no local location");
+        }
+        final File directory = location.toFile();
+        final File gitDir = GitDelta.findGitDir(directory);
+        if (gitDir == null) {
+            throw new IOException(project.getName() + " is not in a git work tree");
+        }
+        final Registration registration = new Registration(project, listener);
+        final String stamp = GitDelta.getStamp(gitDir, baseRef);
+        final Tracked current = tracked.get(registration);
+        if (current != null && current.baseRef.equals(baseRef) && current.stamp.equals(stamp) && !current.dirty) {
+            return current.changedFiles;
+        }
+        final SortedSet<String> changedFiles = GitDelta.getChangedFiles(directory, baseRef);
+        tracked.put(registration, new Tracked(directory, gitDir, baseRef, stamp, changedFiles));
+        if (getState() == NONE) {
+            schedule(POLL_INTERVAL);
+        }
+        return changedFiles;
+    }
+
+    /**
+     * Stop tracking a project for a listener.
+     */
+    public void untrack(final IProject project, final IDeltaScopeListener listener) {
+        tracked.remove(new Registration(project, listener));
+    }
+
+    @Override
+    protected IStatus run(final IProgressMonitor monitor) {
+        for (final Map.Entry<Registration, Tracked> entry : tracked.entrySet()) {
+            if (monitor.isCanceled()) {
+                return Status.CANCEL_STATUS;
+            }
+            final Registration registration = entry.getKey();
+            final Tracked current = entry.getValue();
+            if (!registration.project.isAccessible()) {
+                tracked.remove(registration, current);
+                continue;
+            }
+            final String stamp = GitDelta.getStamp(current.gitDir, current.baseRef);
+            if (stamp.equals(current.stamp) && !current.dirty) {
+                continue;
+            }
+            try {
+                final SortedSet<String> changedFiles = GitDelta.getChangedFiles(current.directory, current.baseRef);
+                final Tracked updated = new Tracked(current.directory, current.gitDir, current.baseRef, stamp,
+                        changedFiles);
+                if (tracked.replace(registration, current, updated) && !changedFiles.equals(current.changedFiles)) {
+                    registration.listener.changedFilesUpdated(registration.project, changedFiles);
+                }
+            } catch (IOException e) {
+                log("Failed to read changed files of " + registration.project.getName(), e);
+            }
+        }
+        if (!tracked.isEmpty()) {
+            schedule(POLL_INTERVAL);
+        }
+        return Status.OK_STATUS;
+    }
+
+    /**
+     * Java files edited in the workspace don't move any git timestamp, mark
+     * their projects to be checked at the next poll.
+     */
+    public void resourceChanged(final IResourceChangeEvent event) {
+        if (tracked.isEmpty() || event.getDelta() == null) {
+            return;
+        }
+        try {
+            event.getDelta().accept(new IResourceDeltaVisitor() {
+                public boolean visit(final IResourceDelta delta) {
+                    final IResource resource = delta.getResource();
+                    if (resource instanceof IFile) {
+                        // only java sources are analyzed
+                        final boolean contentChanged = delta.getKind() != IResourceDelta.CHANGED
+                                || (delta.getFlags() & IResourceDelta.CONTENT) != 0;
+                        if (contentChanged && "java".equals(resource.getFileExtension())) {
+                            markDirty(resource.getProject());
+                        }
+                        return false;
+                    }
+                    return true;
+                }
+            });
+        } catch (CoreException e) {
+            log("Failed to visit resource changes", e);
+        }
+    }
+
+    private void markDirty(final IProject project) {
+        for (final Map.Entry<Registration, Tracked> entry : tracked.entrySet()) {
+            if (entry.getKey().project.equals(project)) {
+                entry.getValue().dirty = true;
+            }
+        }
+    }
+
+    private static void log(final String message, final Exception e) {
+        Activator.getDefault().getLog().log(new Status(IStatus.ERROR, Activator.PLUGIN_ID, message, e));
+    }
+
+    /**
+     * A project tracked for a listener.
+     */
+    private static final class Registration {
+
+        private final IProject project;
+
+        private final IDeltaScopeListener listener;
+
+        Registration(final IProject project, final IDeltaScopeListener listener) {
+            this.project = project;
+            this.listener = listener;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Registration)) {
+                return false;
+            }
+            final Registration other = (Registration) obj;
+            return project.equals(other.project) && listener == other.listener;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * project.hashCode() + System.identityHashCode(listener);
+        }
+    }
+
+    /**
+     * Last known changed files of a tracked project.
+     */
+    private static final class Tracked {
+
+        private final File directory;
+
+        private final File gitDir;
+
+        private final String baseRef;
+
+        private final String stamp;
+
+        private final SortedSet<String> changedFiles;
+
+        private volatile boolean dirty;
+
+        Tracked(final File directory, final File gitDir, final String baseRef, final String stamp,
+                final SortedSet<String> changedFiles) {
+            this.directory = directory;
+            this.gitDir = gitDir;
+            this.baseRef = baseRef;
+            this.stamp = stamp;
+            this.changedFiles = changedFiles;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package org.eclipse.configurator.delta;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Read the files changed against a git base ref from the local repository,
+ * running the git command line. Nothing is fetched, the base ref is used as
+ * known by the local repository.
+ *
+ * @author Pierre BRUNIN
+ */
+public final class GitDelta {
+
+    private static final String GIT = "git";
+
+    private GitDelta() {
+    }
+
+    /**
+     * Return the git directory of the repository containing a directory.
+     *
+     * @return the git directory, or null if the directory is not in a git
+     *         work tree
+     */
+    public static File findGitDir(final File directory) {
+        File current = directory.getAbsoluteFile();
+        while (current != null) {
+            final File dotGit = new File(current, ".git");
+            if (dotGit.isDirectory()) {
+                return dotGit;
+            }
+            if (dotGit.isFile()) {
+                // work trees and submodules: "gitdir: <path>"
+                try {
+                    final String content = read(dotGit).trim();
+                    if (content.startsWith("gitdir:")) {
+                        final File gitDir = new File(content.substring("gitdir:".length()).trim());
+                        return gitDir.isAbsolute() ? gitDir : new File(current, gitDir.getPath());
+                    }
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+            current = current.getParentFile();
+        }
+        return null;
+    }
+
+    /**
+     * Return a stamp of the repository state: it changes when HEAD moves,
+     * when files are staged or committed, and when the base ref is updated.
+     * Only file timestamps are read.
+     */
+    public static String getStamp(final File gitDir, final String baseRef) {
+        final StringBuilder stamp = new StringBuilder();
+        final File head = new File(gitDir, "HEAD");
+        stamp.append(head.lastModified());
+        stamp.append(':').append(new File(gitDir, "index").lastModified());
+        stamp.append(':').append(new File(gitDir, "packed-refs").lastModified());
+        try {
+            final String content = read(head).trim();
+            if (content.startsWith("ref:")) {
+                stamp.append(':').append(new File(gitDir, content.substring("ref:".length()).trim()).lastModified());
+            }
+        } catch (IOException e) {
+            stamp.append(":-");
+        }
+        for (final String prefix : new String[] { "", "refs/heads/", "refs/remotes/", "refs/tags/" }) {
+            final File ref = new File(gitDir, prefix + baseRef);
+            if (ref.isFile()) {
+                stamp.append(':').append(ref.lastModified());
+                break;
+            }
+        }
+        return stamp.toString();
+    }
+
+    /**
+     * Return the files of a directory changed since the base ref: committed,
+     * staged and unstaged changes, plus untracked files. The work tree is
+     * compared with the merge base of the base ref and HEAD, so commits added
+     * to the base ref afterwards are not reported. Deleted files are left out.
+     *
+     * @param directory
+     *            a directory of the work tree
+     * @param baseRef
+     *            branch, tag or commit to compare with
+     * @return paths relative to the directory, with '/' separators
+     * @throws IOException
+     *             if git can't be run or fails
+     */
+    public static SortedSet<String> getChangedFiles(final File directory, final String baseRef) throws IOException {
+        final List<String> mergeBase = run(directory, GIT, "merge-base", baseRef, "HEAD");
+        if (mergeBase.isEmpty()) {
+            throw new IOException("No merge base of " + baseRef + " and HEAD in " + directory);
+        }
+        final SortedSet<String> files = new TreeSet<String>();
+        files.addAll(run(directory, GIT, "-c", "core.quotepath=off", "diff", "--name-only", "--relative",
+                "--diff-filter=d", mergeBase.get(0), "--", "."));
+        files.addAll(run(directory, GIT, "-c", "core.quotepath=off", "ls-files", "--others", "--exclude-standard",
+                "--", "."));
+        return files;
+    }
+
+    private static List<String> run(final File directory, final String... command) throws IOException {
+        final Process process = new ProcessBuilder(command).directory(directory).start();
+        process.getOutputStream().close();
+        final StreamGobbler errors = new StreamGobbler(process.getErrorStream());
+        errors.start();
+        final List<String> lines = new ArrayList<String>();
+        try {
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.length() > 0) {
+                        lines.add(line);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            final int status = process.waitFor();
+            errors.join();
+            if (status != 0) {
+                throw new IOException(Arrays.asList(command) + " failed in " + directory + ": " + errors.getOutput());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running " + Arrays.asList(command));
+        } finally {
+            process.destroy();
+        }
+        return lines;
+    }
+
+    private static String read(final File file) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                "UTF-8"));
+        try {
+            final StringBuilder content = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                content.append(line).append('\n');
+            }
+            return content.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Drain the error stream, so git never blocks on a full pipe.
+     */
+    private static class StreamGobbler extends Thread {
+
+        private final InputStream inputStream;
+
+        private final StringBuilder output = new StringBuilder();
+
+        StreamGobbler(final InputStream inputStream) {
+            super("git error stream");
+            setDaemon(true);
+            this.inputStream = inputStream;
+        }
+
+        @Override
+        public void run() {
+            try {
+                final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"));
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        synchronized (output) {
+                            output.append(line).append('\n');
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (IOException e) {
+                // process destroyed
+            }
+        }
+
+        String getOutput() {
+            synchronized (output) {
+                return output.toString().trim();
+            }
+        }
+    }
+}
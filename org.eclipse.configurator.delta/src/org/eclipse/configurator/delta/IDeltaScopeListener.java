@@ -0,0 +1,22 @@
+package org.eclipse.configurator.delta;
+
+import java.util.SortedSet;
+
+import org.eclipse.core.resources.IProject;
+
+/**
+ * Notified by the {@link DeltaScopeTracker} when the files of a project
+ * changed against the git base ref are not the same anymore.
+ *
+ * @author Pierre BRUNIN
+ */
+public interface IDeltaScopeListener {
+
+    /**
+     * @param project
+     *            the tracked project
+     * @param changedFiles
+     *            paths relative to the project, with '/' separators
+     */
+    public void changedFilesUpdated(final IProject project, final SortedSet<String> changedFiles);
+}
@@ -0,0 +1,24 @@
+package org.eclipse.configurator.delta;
+
+/**
+ * Preference keys of the delta scope, shared by the configurators of every
+ * analysis tool. Values can be set in the workspace preferences or in
+ * plugin_customization.ini for headless workspaces.
+ */
+public final class PreferenceConstants {
+
+    /**
+     * Only analyze the files changed against the git base ref, as read from
+     * the local repository of the project.
+     */
+    public static final String DELTA_SCOPE = "deltaScope";
+
+    /** Git branch, tag or commit the changed files are compared with. */
+    public static final String DELTA_BASE_REF = "deltaBaseRef";
+
+    /** Default of {@link #DELTA_BASE_REF}. */
+    public static final String DEFAULT_BASE_REF = "origin/master";
+
+    private PreferenceConstants() {
+    }
+}
@@ -0,0 +1,18 @@
+package org.eclipse.configurator.delta;
+
+import org.eclipse.core.runtime.preferences.AbstractPreferenceInitializer;
+import org.eclipse.core.runtime.preferences.DefaultScope;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+
+/**
+ * Initialize default preference values of the delta scope.
+ */
+public class PreferenceInitializer extends AbstractPreferenceInitializer {
+
+    @Override
+    public void initializeDefaultPreferences() {
+        final IEclipsePreferences preferences = new DefaultScope().getNode(Activator.PLUGIN_ID);
+        preferences.putBoolean(PreferenceConstants.DELTA_SCOPE, false);
+        preferences.put(PreferenceConstants.DELTA_BASE_REF, PreferenceConstants.DEFAULT_BASE_REF);
+    }
+}
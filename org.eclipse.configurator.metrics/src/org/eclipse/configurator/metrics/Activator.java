@@ -0,0 +1,95 @@
+package org.eclipse.configurator.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Plugin;
+import org.eclipse.core.runtime.Status;
+import org.osgi.framework.BundleContext;
+
+/**
+ * The activator class controls the plug-in life cycle
+ */
+public class Activator extends Plugin {
+
+	// The plug-in ID
+	public static final String PLUGIN_ID = "org.eclipse.configurator.metrics"; //$NON-NLS-1$
+
+	// Tracing options, see .options
+	private static final String DEBUG_PHASES = PLUGIN_ID + "/debug/phases"; //$NON-NLS-1$
+
+	private static final String DEBUG_REPORT = PLUGIN_ID + "/debug/report"; //$NON-NLS-1$
+
+	// The shared instance
+	private static Activator plugin;
+
+	private ObjectName objectName;
+
+	/**
+	 * The constructor
+	 */
+	public Activator() {
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.eclipse.core.runtime.Plugin#start(org.osgi.framework.BundleContext)
+	 */
+	public void start(BundleContext context) throws Exception {
+		super.start(context);
+		plugin = this;
+		Metrics.setTracing(isDebugging() && isTracing(DEBUG_PHASES));
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			objectName = new ObjectName(ConfiguratorMetrics.OBJECT_NAME);
+			if (server.isRegistered(objectName)) {
+				// left by a previous start of the bundle
+				server.unregisterMBean(objectName);
+			}
+			server.registerMBean(new ConfiguratorMetrics(Metrics.getRegistry()), objectName);
+		} catch (JMException e) {
+			objectName = null;
+			getLog().log(new Status(IStatus.WARNING, PLUGIN_ID, "Failed to register the metrics MBean", e));
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.eclipse.core.runtime.Plugin#stop(org.osgi.framework.BundleContext)
+	 */
+	public void stop(BundleContext context) throws Exception {
+		if (isDebugging() && isTracing(DEBUG_REPORT)) {
+			Metrics.trace("report\n" + Metrics.getRegistry().report());
+		}
+		Metrics.setTracing(false);
+		if (objectName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			} catch (JMException e) {
+				// already gone
+			}
+			objectName = null;
+		}
+		plugin = null;
+		super.stop(context);
+	}
+
+	private static boolean isTracing(final String option) {
+		return "true".equalsIgnoreCase(Platform.getDebugOption(option)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the shared instance
+	 *
+	 * @return the shared instance
+	 */
+	public static Activator getDefault() {
+		return plugin;
+	}
+
+}
@@ -0,0 +1,88 @@
+package org.eclipse.configurator.metrics;
+
+import java.util.Set;
+
+/**
+ * Standard MBean exposing the metrics of the configurators, so they can be
+ * collected from headless workspaces with any JMX client.
+ *
+ * @author Pierre BRUNIN
+ */
+public class ConfiguratorMetrics implements ConfiguratorMetricsMBean {
+
+    public static final String OBJECT_NAME = "org.eclipse.configurator.metrics:type=ConfiguratorMetrics";
+
+    private final MetricsRegistry registry;
+
+    public ConfiguratorMetrics(final MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    public String[] getPhaseNames() {
+        return toArray(registry.getPhaseNames());
+    }
+
+    public String[] getByteSourceNames() {
+        return toArray(registry.getByteSourceNames());
+    }
+
+    public String[] getCacheNames() {
+        return toArray(registry.getCacheNames());
+    }
+
+    public String[] getBuilderNames() {
+        return toArray(registry.getBuilderNames());
+    }
+
+    public long getPhaseCount(final String phase) {
+        final LatencyHistogram histogram = registry.getPhase(phase);
+        return histogram == null ? 0L : histogram.getCount();
+    }
+
+    public double getPhaseMeanMillis(final String phase) {
+        final LatencyHistogram histogram = registry.getPhase(phase);
+        return histogram == null ? 0.0 : histogram.getMeanMillis();
+    }
+
+    public double getPhaseMaxMillis(final String phase) {
+        final LatencyHistogram histogram = registry.getPhase(phase);
+        return histogram == null ? 0.0 : histogram.getMaxMillis();
+    }
+
+    public double getPhasePercentileMillis(final String phase, final double percentile) {
+        final LatencyHistogram histogram = registry.getPhase(phase);
+        return histogram == null ? 0.0 : histogram.getPercentileMillis(percentile);
+    }
+
+    public long getBytes(final String source) {
+        return registry.getBytes(source);
+    }
+
+    public long getHits(final String cache) {
+        return registry.getHits(cache);
+    }
+
+    public long getMisses(final String cache) {
+        return registry.getMisses(cache);
+    }
+
+    public double getHitRatio(final String cache) {
+        return registry.getHitRatio(cache);
+    }
+
+    public long getRebuilds(final String builder) {
+        return registry.getRebuilds(builder);
+    }
+
+    public String getReport() {
+        return registry.report();
+    }
+
+    public void reset() {
+        registry.reset();
+    }
+
+    private static String[] toArray(final Set<String> names) {
+        return names.toArray(new String[names.size()]);
+    }
+}
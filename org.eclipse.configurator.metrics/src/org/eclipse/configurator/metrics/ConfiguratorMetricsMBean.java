@@ -0,0 +1,47 @@
+package org.eclipse.configurator.metrics;
+
+/**
+ * JMX view of the {@link MetricsRegistry}, registered as
+ * {@value ConfiguratorMetrics#OBJECT_NAME}.
+ *
+ * @author Pierre BRUNIN
+ */
+public interface ConfiguratorMetricsMBean {
+
+    String[] getPhaseNames();
+
+    String[] getByteSourceNames();
+
+    String[] getCacheNames();
+
+    String[] getBuilderNames();
+
+    long getPhaseCount(String phase);
+
+    double getPhaseMeanMillis(String phase);
+
+    double getPhaseMaxMillis(String phase);
+
+    /**
+     * @param percentile
+     *            between 0 and 100
+     */
+    double getPhasePercentileMillis(String phase, double percentile);
+
+    long getBytes(String source);
+
+    long getHits(String cache);
+
+    long getMisses(String cache);
+
+    double getHitRatio(String cache);
+
+    long getRebuilds(String builder);
+
+    /**
+     * Every value, one per line.
+     */
+    String getReport();
+
+    void reset();
+}
@@ -0,0 +1,96 @@
+package org.eclipse.configurator.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of durations.
+ * <p>
+ * Durations are counted in power of two buckets of microseconds, so the
+ * memory used is constant and percentiles are known within a factor of two,
+ * which is enough to tell a cache hit from a download.
+ *
+ * @author Pierre BRUNIN
+ */
+public class LatencyHistogram {
+
+    /** Bucket i counts durations below 2^i microseconds, the last one the others. */
+    private static final int BUCKETS = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Record a duration.
+     */
+    public void record(final long nanos) {
+        final long duration = Math.max(0L, nanos);
+        final long micros = duration / 1000L;
+        buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros)));
+        count.incrementAndGet();
+        totalNanos.addAndGet(duration);
+        long max = maxNanos.get();
+        while (duration > max && !maxNanos.compareAndSet(max, duration)) {
+            max = maxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public double getTotalMillis() {
+        return totalNanos.get() / 1000000.0;
+    }
+
+    public double getMeanMillis() {
+        final long n = count.get();
+        return n == 0 ? 0.0 : totalNanos.get() / 1000000.0 / n;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1000000.0;
+    }
+
+    /**
+     * Return the upper bound of the bucket holding a percentile.
+     *
+     * @param percentile
+     *            between 0 and 100
+     * @return duration in milliseconds, 0 if nothing was recorded
+     */
+    public double getPercentileMillis(final double percentile) {
+        final long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0.0;
+        }
+        final long rank = Math.max(1L, (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+        long cumulated = 0;
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            cumulated += snapshot[i];
+            if (cumulated >= rank) {
+                return Math.min((1L << i) / 1000.0, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0L);
+        }
+        count.set(0L);
+        totalNanos.set(0L);
+        maxNanos.set(0L);
+    }
+}
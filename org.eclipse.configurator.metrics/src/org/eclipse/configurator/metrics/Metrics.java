@@ -0,0 +1,136 @@
+package org.eclipse.configurator.metrics;
+
+/**
+ * Instrumentation shared by the configurators.
+ * <p>
+ * A phase is measured with:
+ *
+ * <pre>
+ * final long start = Metrics.start();
+ * try {
+ *     ...
+ * } finally {
+ *     Metrics.stop(Metrics.SONAR_RESOLVE_URL_CONFIG, start);
+ * }
+ * </pre>
+ *
+ * Values are kept in memory, exposed by the JMX bean registered by the
+ * plug-in and printed when the tracing options are enabled.
+ *
+ * @author Pierre BRUNIN
+ */
+public final class Metrics {
+
+    /* phases */
+
+    public static final String SONAR_CONFIGURE = "sonar.configure";
+
+    public static final String SONAR_PROJECT_CHANGED = "sonar.mavenProjectChanged";
+
+    public static final String SONAR_RESOLVE_URL_CONFIG = "sonar.resolveURLConfig";
+
+    public static final String MAVEN_RESOLVE = "maven.resolve";
+
+    public static final String CHECKSTYLE_CONFIGURE = "checkstyle.configure";
+
+    public static final String CHECKSTYLE_UPDATE = "checkstyle.updateProjectConfiguration";
+
+    public static final String CHECKSTYLE_REFRESH_RULESET = "checkstyle.refreshRuleSet";
+
+    public static final String CHECKSTYLE_STORE = "checkstyle.store";
+
+    public static final String CHECKSTYLE_BUILD = "checkstyle.buildProject";
+
+    public static final String PMD_STORE_RULESET = "pmd.storeRuleSet";
+
+    /* bytes */
+
+    public static final String SONAR_EXPORT_BYTES = "sonar.export";
+
+    public static final String CHECKSTYLE_RULESET_BYTES = "checkstyle.ruleSet";
+
+    public static final String PMD_RULESET_BYTES = "pmd.ruleSet";
+
+    /* caches */
+
+    public static final String SONAR_PROFILE_CACHE = "sonar.profileCache";
+
+    public static final String SONAR_PROFILE_LOADER = "sonar.profileLoader";
+
+    public static final String SONAR_PROFILE_SNAPSHOT = "sonar.profileSnapshot";
+
+    public static final String SONAR_EXTENSIONS = "sonar.extensions";
+
+    public static final String CHECKSTYLE_PROPERTIES_CACHE = "checkstyle.propertiesCache";
+
+    public static final String CHECKSTYLE_RULESET_LOCATOR = "checkstyle.ruleSetLocator";
+
+    public static final String CHECKSTYLE_RULESET_CACHE = "checkstyle.ruleSetCache";
+
+    public static final String CHECKSTYLE_SUN_CHECKS = "checkstyle.sunChecks";
+
+    public static final String PMD_RULESET_STORE = "pmd.ruleSetStore";
+
+    /* builders */
+
+    public static final String CHECKSTYLE_BUILDER = "checkstyle";
+
+    public static final String PMD_BUILDER = "pmd";
+
+    private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    private static volatile boolean tracing;
+
+    private Metrics() {
+    }
+
+    /**
+     * Return the start time of a phase, to pass to
+     * {@link #stop(String, long)}.
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Record the duration of a phase started at start.
+     */
+    public static void stop(final String phase, final long start) {
+        final long nanos = System.nanoTime() - start;
+        REGISTRY.record(phase, nanos);
+        if (tracing) {
+            trace(String.format("%s %.1fms", phase, nanos / 1000000.0));
+        }
+    }
+
+    public static void addBytes(final String source, final long bytes) {
+        REGISTRY.addBytes(source, bytes);
+    }
+
+    public static void hit(final String cache) {
+        REGISTRY.hit(cache);
+    }
+
+    public static void miss(final String cache) {
+        REGISTRY.miss(cache);
+    }
+
+    public static void rebuild(final String builder) {
+        REGISTRY.rebuild(builder);
+        if (tracing) {
+            trace("rebuild " + builder);
+        }
+    }
+
+    public static MetricsRegistry getRegistry() {
+        return REGISTRY;
+    }
+
+    static void setTracing(final boolean enabled) {
+        tracing = enabled;
+    }
+
+    static void trace(final String message) {
+        System.out.println("[" + Activator.PLUGIN_ID + "] " + message);
+    }
+}
@@ -0,0 +1,168 @@
+package org.eclipse.configurator.metrics;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics recorded by the configurators: phase durations, bytes fetched,
+ * cache hits and misses, and builds triggered. Every value is keyed by a
+ * name, see the constants of {@link Metrics}.
+ *
+ * @author Pierre BRUNIN
+ */
+public class MetricsRegistry {
+
+    private final ConcurrentMap<String, LatencyHistogram> phases = new ConcurrentHashMap<String, LatencyHistogram>();
+
+    private final ConcurrentMap<String, AtomicLong> bytes = new ConcurrentHashMap<String, AtomicLong>();
+
+    private final ConcurrentMap<String, AtomicLong> hits = new ConcurrentHashMap<String, AtomicLong>();
+
+    private final ConcurrentMap<String, AtomicLong> misses = new ConcurrentHashMap<String, AtomicLong>();
+
+    private final ConcurrentMap<String, AtomicLong> rebuilds = new ConcurrentHashMap<String, AtomicLong>();
+
+    public void record(final String phase, final long nanos) {
+        LatencyHistogram histogram = phases.get(phase);
+        if (histogram == null) {
+            final LatencyHistogram created = new LatencyHistogram();
+            histogram = phases.putIfAbsent(phase, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        histogram.record(nanos);
+    }
+
+    public void addBytes(final String source, final long count) {
+        counter(bytes, source).addAndGet(count);
+    }
+
+    public void hit(final String cache) {
+        counter(hits, cache).incrementAndGet();
+        // the cache is listed with a zero miss count
+        counter(misses, cache);
+    }
+
+    public void miss(final String cache) {
+        counter(misses, cache).incrementAndGet();
+        counter(hits, cache);
+    }
+
+    public void rebuild(final String builder) {
+        counter(rebuilds, builder).incrementAndGet();
+    }
+
+    /**
+     * Return the histogram of a phase, or null if it was never measured.
+     */
+    public LatencyHistogram getPhase(final String phase) {
+        return phases.get(phase);
+    }
+
+    public Set<String> getPhaseNames() {
+        return new TreeSet<String>(phases.keySet());
+    }
+
+    public Set<String> getByteSourceNames() {
+        return new TreeSet<String>(bytes.keySet());
+    }
+
+    public Set<String> getCacheNames() {
+        return new TreeSet<String>(hits.keySet());
+    }
+
+    public Set<String> getBuilderNames() {
+        return new TreeSet<String>(rebuilds.keySet());
+    }
+
+    public long getBytes(final String source) {
+        return get(bytes, source);
+    }
+
+    public long getHits(final String cache) {
+        return get(hits, cache);
+    }
+
+    public long getMisses(final String cache) {
+        return get(misses, cache);
+    }
+
+    /**
+     * Return hits / (hits + misses), or 0 if the cache was never used.
+     */
+    public double getHitRatio(final String cache) {
+        final long hit = getHits(cache);
+        final long total = hit + getMisses(cache);
+        return total == 0 ? 0.0 : (double) hit / total;
+    }
+
+    public long getRebuilds(final String builder) {
+        return get(rebuilds, builder);
+    }
+
+    /**
+     * Forget every recorded value.
+     */
+    public void reset() {
+        for (final LatencyHistogram histogram : phases.values()) {
+            histogram.reset();
+        }
+        clear(bytes);
+        clear(hits);
+        clear(misses);
+        clear(rebuilds);
+    }
+
+    /**
+     * Return a human readable report of every value, one per line.
+     */
+    public String report() {
+        final StringBuilder report = new StringBuilder();
+        for (final String phase : getPhaseNames()) {
+            final LatencyHistogram histogram = phases.get(phase);
+            report.append(String.format("phase %s: count=%d mean=%.1fms p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms "
+                    + "total=%.1fms%n", phase, histogram.getCount(), histogram.getMeanMillis(), histogram
+                    .getPercentileMillis(50), histogram.getPercentileMillis(90), histogram.getPercentileMillis(99),
+                    histogram.getMaxMillis(), histogram.getTotalMillis()));
+        }
+        for (final String source : getByteSourceNames()) {
+            report.append(String.format("bytes %s: %d%n", source, getBytes(source)));
+        }
+        for (final String cache : getCacheNames()) {
+            report.append(String.format("cache %s: hits=%d misses=%d ratio=%.2f%n", cache, getHits(cache),
+                    getMisses(cache), getHitRatio(cache)));
+        }
+        for (final String builder : getBuilderNames()) {
+            report.append(String.format("rebuilds %s: %d%n", builder, getRebuilds(builder)));
+        }
+        return report.toString();
+    }
+
+    private static AtomicLong counter(final ConcurrentMap<String, AtomicLong> counters, final String name) {
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            final AtomicLong created = new AtomicLong();
+            counter = counters.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    private static void clear(final Map<String, AtomicLong> counters) {
+        for (final AtomicLong counter : counters.values()) {
+            counter.set(0L);
+        }
+    }
+
+    private static long get(final Map<String, AtomicLong> counters, final String name) {
+        final AtomicLong counter = counters.get(name);
+        return counter == null ? 0L : counter.get();
+    }
+}
@@ -20,24 +20,35 @@
 
 package org.maven.ide.eclipse.checkstyle;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.StringReader;
-import java.net.MalformedURLException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
 
 import net.sf.eclipsecs.core.nature.CheckstyleNature;
 
 import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.eclipse.checkstyle.configurator.Activator;
+import org.eclipse.checkstyle.configurator.api.CheckstyleConfigurationRequest;
 import org.eclipse.checkstyle.configurator.api.ICheckstyleProjectConfigurator;
+import org.eclipse.configurator.metrics.Metrics;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Platform;
 import org.maven.ide.eclipse.core.MavenLogger;
 import org.maven.ide.eclipse.project.MavenProjectChangedEvent;
 import org.maven.ide.eclipse.project.configurator.AbstractProjectConfigurator;
@@ -50,10 +61,15 @@ import org.maven.ide.eclipse.project.configurator.ProjectConfigurationRequest;
  * The configurator create (or update) a remote configuration that uses the
  * configLocation set in maven as an URL. If the configLocation points to a
  * dependency resource, it will be resolved using the special <code>jar:!</code>
- * URL syntax.
+ * URL syntax, or found in the jars declared as dependencies of the plugin.
+ * Without configLocation, the sun checks configuration is extracted once from
+ * the maven-checkstyle-plugin jar.
  */
 public class MavenCheckstyleProjectConfigurator extends AbstractProjectConfigurator {
 
+    /** Symbolic name of this bundle, whose state location holds the sun checks. */
+    private static final String PLUGIN_ID = "org.maven.ide.eclipse.checkstyle";
+
     /** Checkstyle ruleset name to match maven's one. */
     private static final String CONFIGURATION_NAME = "maven-chekstyle-plugin";
 
@@ -63,8 +79,15 @@ public class MavenCheckstyleProjectConfigurator extends AbstractProjectConfigura
     /** checkstyle maven plugin artifactId. */
     private static final String CHECKSTYLE_PLUGIN_ARTIFACTID = "maven-checkstyle-plugin";
 
-    private ICheckstyleProjectConfigurator checkstyleProjectConfigurator = Activator.getDefault()
-            .getCheckstyleProjectConfigurator();
+    /** sun checkstyle configuration in maven-checkstyle-plugin jar. */
+    private static final String SUN_CHECKS = "config/sun_checks.xml";
+
+    /** sun checkstyle configuration extracted per plugin groupId:artifactId:version. */
+    private static final ConcurrentMap<String, URL> SUN_CHECKS_CONFIGURATIONS = new ConcurrentHashMap<String, URL>();
+
+    /** properties shared by the modules using the same propertiesLocation and propertyExpansion. */
+    private static final PropertiesCache PROPERTIES_CACHE = new PropertiesCache();
+
 
     /**
      * {@inheritDoc}
@@ -82,37 +105,69 @@ public class MavenCheckstyleProjectConfigurator extends AbstractProjectConfigura
     private void configure(final MavenProject mavenProject, final IProject project, final IProgressMonitor monitor)
             throws CoreException {
         monitor.beginTask("Checkstyle configuration update", 2);
+        final long start = Metrics.start();
         try {
             final Plugin plugin = getCheckstylePlugin(mavenProject);
             if (plugin != null) {
-                final URL ruleset = getCheckstyleConfiguration(mavenProject, plugin, monitor);
-                final Properties properties = extractCustomProperties(plugin);
+                final List<File> jars = getPluginDependencies(plugin, monitor);
+                final URL ruleset = getCheckstyleConfiguration(mavenProject, plugin, jars, monitor);
+                final Properties properties = extractCustomProperties(plugin, jars);
                 final List<String> compileSource = mavenProject.getCompileSourceRoots();
-                checkstyleProjectConfigurator.updateProjectConfiguration(project, ruleset, properties, compileSource,
-                        CONFIGURATION_NAME, monitor);
+                final List<String> testSource = mavenProject.getTestCompileSourceRoots();
+                // applied with the other modules of the import, in a single batch
+                getCheckstyleProjectConfigurator().requestProjectConfiguration(
+                        new CheckstyleConfigurationRequest(project, ruleset, properties, compileSource,
+                                CONFIGURATION_NAME, testSource, mavenProject.getBuild().getDirectory()));
                 addNature(project, CheckstyleNature.NATURE_ID, monitor);
             } else {
                 // TODO remove CheckStyle Nature
             }
         } finally {
+            Metrics.stop(Metrics.CHECKSTYLE_CONFIGURE, start);
             monitor.done();
         }
     }
 
     /* Return true if contents are modified, or new */
     private URL getCheckstyleConfiguration(final MavenProject mavenProject, final Plugin mavenPlugin,
-            final IProgressMonitor monitor) throws CoreException {
+            final List<File> jars, final IProgressMonitor monitor) throws CoreException {
 
         final String configLocation = extractMavenConfiguration(mavenPlugin, "configLocation");
         if (configLocation != null) {
-            return checkstyleProjectConfigurator.locateRuleSet(configLocation);
+            return getCheckstyleProjectConfigurator().locateRuleSet(configLocation, jars);
         }
 
         return getSunCheckStyleConfiguration(mavenPlugin, monitor);
     }
 
     /**
-     * Return sun checkstyle configuration.
+     * Resolve the jars declared as dependencies of maven-checkstyle-plugin,
+     * where configLocation and propertiesLocation may be found.
+     */
+    private List<File> getPluginDependencies(final Plugin mavenPlugin, final IProgressMonitor monitor) {
+        final List<File> jars = new ArrayList<File>();
+        for (final Object object : mavenPlugin.getDependencies()) {
+            final Dependency dependency = (Dependency) object;
+            final long start = Metrics.start();
+            try {
+                final Artifact artifact = maven.resolve(dependency.getGroupId(), dependency.getArtifactId(),
+                        dependency.getVersion(), dependency.getType(), dependency.getClassifier(), maven
+                                .getPluginArtifactRepositories(), monitor);
+                if (artifact.getFile() != null) {
+                    jars.add(artifact.getFile());
+                }
+            } catch (CoreException e) {
+                MavenLogger.log("Failed to resolve checkstyle plugin dependency " + dependency, e);
+            } finally {
+                Metrics.stop(Metrics.MAVEN_RESOLVE, start);
+            }
+        }
+        return jars;
+    }
+
+    /**
+     * Return sun checkstyle configuration, extracted once per
+     * maven-checkstyle-plugin version.
      * 
      * @param mavenPlugin
      *            Instance of maven-checkstyle-plugin
@@ -122,18 +177,91 @@ public class MavenCheckstyleProjectConfigurator extends AbstractProjectConfigura
      */
     private URL getSunCheckStyleConfiguration(final Plugin mavenPlugin, final IProgressMonitor monitor)
             throws CoreException {
-        final Artifact artifact = maven.resolve(mavenPlugin.getGroupId(), mavenPlugin.getArtifactId(),
-                mavenPlugin.getVersion(), "jar", null, maven.getPluginArtifactRepositories(), monitor);
+        final String key = mavenPlugin.getGroupId() + ":" + mavenPlugin.getArtifactId() + ":"
+                + mavenPlugin.getVersion();
+        URL url = SUN_CHECKS_CONFIGURATIONS.get(key);
+        if (url != null) {
+            Metrics.hit(Metrics.CHECKSTYLE_SUN_CHECKS);
+        } else {
+            Metrics.miss(Metrics.CHECKSTYLE_SUN_CHECKS);
+            url = extractSunCheckStyleConfiguration(mavenPlugin, key, monitor);
+            if (url != null) {
+                final URL previous = SUN_CHECKS_CONFIGURATIONS.putIfAbsent(key, url);
+                if (previous != null) {
+                    url = previous;
+                }
+            }
+        }
+        return url;
+    }
+
+    /**
+     * Copy sun checkstyle configuration from the plugin jar into the state
+     * location of this bundle, without going through (and caching) a jar: URL
+     * connection. The copy is named after the plugin version and never
+     * replaced: an existing copy is complete, as it is written aside and
+     * renamed.
+     */
+    private URL extractSunCheckStyleConfiguration(final Plugin mavenPlugin, final String key,
+            final IProgressMonitor monitor) throws CoreException {
+        final File directory = Platform.getStateLocation(Platform.getBundle(PLUGIN_ID)).append("sun_checks")
+                .toFile();
+        final File file = new File(directory, "sun_checks-" + mavenPlugin.getVersion().replaceAll("[^\\w.-]", "_")
+                + ".xml");
         try {
-            URL url = new URL("jar:" + artifact.getFile().toURI().toURL().toString() + "!/config/sun_checks.xml");
+            if (file.isFile()) {
+                return file.toURI().toURL();
+            }
+            final long start = Metrics.start();
+            final Artifact artifact;
             try {
-                url.openConnection();
-                return url;
-            } catch (IOException e) {
-                MavenLogger.log("Failed to load sun checks configuration", e);
+                artifact = maven.resolve(mavenPlugin.getGroupId(), mavenPlugin.getArtifactId(), mavenPlugin
+                        .getVersion(), "jar", null, maven.getPluginArtifactRepositories(), monitor);
+            } finally {
+                Metrics.stop(Metrics.MAVEN_RESOLVE, start);
+            }
+            final JarFile jarFile = new JarFile(artifact.getFile());
+            try {
+                final ZipEntry entry = jarFile.getEntry(SUN_CHECKS);
+                if (entry == null) {
+                    MavenLogger.log("No sun checks configuration in " + artifact.getFile(), null);
+                    return null;
+                }
+                if (!directory.mkdirs() && !directory.isDirectory()) {
+                    throw new IOException("Unable to create directory " + directory);
+                }
+                final File temp = File.createTempFile(file.getName(), ".tmp", directory);
+                try {
+                    final InputStream inputStream = jarFile.getInputStream(entry);
+                    try {
+                        final OutputStream outputStream = new FileOutputStream(temp);
+                        try {
+                            final byte[] buffer = new byte[8192];
+                            int read;
+                            while ((read = inputStream.read(buffer)) != -1) {
+                                outputStream.write(buffer, 0, read);
+                            }
+                        } finally {
+                            outputStream.close();
+                        }
+                    } finally {
+                        inputStream.close();
+                    }
+                    // a copy renamed meanwhile by a concurrent configuration has the same content
+                    if (!temp.renameTo(file) && !file.isFile()) {
+                        throw new IOException("Failed to store " + file);
+                    }
+                } finally {
+                    if (temp.exists()) {
+                        temp.delete();
+                    }
+                }
+            } finally {
+                jarFile.close();
             }
-        } catch (MalformedURLException e) {
-            MavenLogger.log("Failed to load sun checks configuration", e);
+            return file.toURI().toURL();
+        } catch (IOException e) {
+            MavenLogger.log("Failed to load sun checks configuration " + key, e);
         }
         return null;
     }
@@ -145,31 +273,38 @@ public class MavenCheckstyleProjectConfigurator extends AbstractProjectConfigura
      *      ://maven.apache.org/plugins/maven-checkstyle-plugin/examples/custom
      *      -property-expansion.html
      */
-    private Properties extractCustomProperties(Plugin plugin) {
-        Properties properties = new Properties();
+    private Properties extractCustomProperties(Plugin plugin, List<File> jars) {
+        URL url = null;
         String propertiesLocation = extractMavenConfiguration(plugin, "propertiesLocation");
         if (propertiesLocation != null) {
-            final URL url = checkstyleProjectConfigurator.locateRuleSet(propertiesLocation);
+            url = getCheckstyleProjectConfigurator().locateRuleSet(propertiesLocation, jars);
             if (url == null) {
                 console.logError("Failed to resolve propertiesLocation " + propertiesLocation);
-            } else {
-                try {
-                    properties.load(url.openStream());
-                } catch (IOException e) {
-                    console.logError("Failed to load properties from " + propertiesLocation);
-                }
             }
         }
 
         String propertyExpansion = extractMavenConfiguration(plugin, "propertyExpansion");
-        if (propertyExpansion != null) {
+        if (url != null) {
             try {
-                properties.load(new StringReader(propertyExpansion));
+                return PROPERTIES_CACHE.get(url, propertyExpansion);
             } catch (IOException e) {
-                console.logError("Failed to parser checkstyle propertyExpansion " + propertyExpansion);
+                console.logError("Failed to load properties from " + propertiesLocation);
             }
         }
-        return properties;
+        try {
+            return PROPERTIES_CACHE.get(null, propertyExpansion);
+        } catch (IOException e) {
+            console.logError("Failed to parser checkstyle propertyExpansion " + propertyExpansion);
+        }
+        return new Properties();
+    }
+
+    /**
+     * The shared configurator is looked up on each use, so this configurator
+     * holds no state and may configure projects concurrently.
+     */
+    private ICheckstyleProjectConfigurator getCheckstyleProjectConfigurator() {
+        return Activator.getDefault().getCheckstyleProjectConfigurator();
     }
 
     /**
@@ -187,22 +322,12 @@ public class MavenCheckstyleProjectConfigurator extends AbstractProjectConfigura
         if (event.getMavenProject().getMavenProject() != null) {
 
             final Plugin currentPlugin = getCheckstylePlugin(event.getMavenProject().getMavenProject());
-            URL currentURL = null;
-            if (currentPlugin != null) {
-                currentURL = getCheckstyleConfiguration(event.getMavenProject().getMavenProject(), currentPlugin,
-                        monitor);
-            }
-
             Plugin oldPlugin = null;
-            URL oldURL = null;
             if (event.getOldMavenProject() != null && event.getOldMavenProject().getMavenProject() != null) {
                 oldPlugin = getCheckstylePlugin(event.getOldMavenProject().getMavenProject());
-                if (oldPlugin != null) {
-                    oldURL = getCheckstyleConfiguration(event.getOldMavenProject().getMavenProject(), oldPlugin,
-                            monitor);
-                }
             }
-            if (checkstyleProjectConfigurator.pluginChanged(currentPlugin, oldPlugin) || checkstyleProjectConfigurator.urlChanged(currentURL, oldURL)) {
+            // rulesets are only resolved when the plugin configuration changed
+            if (getCheckstyleProjectConfigurator().pluginChanged(currentPlugin, oldPlugin)) {
                 configure(event.getMavenProject().getMavenProject(), event.getMavenProject().getProject(), monitor);
             }
         }
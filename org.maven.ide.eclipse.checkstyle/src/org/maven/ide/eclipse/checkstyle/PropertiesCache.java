@@ -0,0 +1,299 @@
+//============================================================================
+//
+// Copyright (C) 2008  Nicolas De loof
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package org.maven.ide.eclipse.checkstyle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+
+import org.eclipse.configurator.metrics.Metrics;
+
+/**
+ * Cache of the checkstyle properties loaded from propertiesLocation and
+ * merged with propertyExpansion.
+ * <p>
+ * Loaded files are keyed by URL and reloaded only when their modification
+ * stamp (last modified and ETag) changes. Merged results are keyed by the
+ * loaded file and the propertyExpansion text, so modules of a reactor
+ * sharing the same configuration get the same immutable {@link Properties}.
+ */
+public class PropertiesCache {
+
+    private static final int MAX_ENTRIES = 64;
+
+    /* keyed by external form, URL.equals may resolve host names */
+    private final Map<String, LoadedProperties> loaded = Collections
+            .synchronizedMap(new LruMap<String, LoadedProperties>());
+
+    private final Map<MergeKey, Properties> merged = Collections.synchronizedMap(new LruMap<MergeKey, Properties>());
+
+    /**
+     * Return properties from a propertiesLocation URL (may be null) and a
+     * propertyExpansion (may be null).
+     *
+     * @throws IOException
+     *             if the properties can't be loaded or parsed
+     */
+    public Properties get(final URL url, final String propertyExpansion) throws IOException {
+        final LoadedProperties location = url == null ? null : load(url);
+        final MergeKey key = new MergeKey(location, propertyExpansion);
+        Properties properties = merged.get(key);
+        if (properties == null) {
+            final Properties merge = new Properties();
+            if (location != null) {
+                merge.putAll(location.properties);
+            }
+            if (propertyExpansion != null) {
+                merge.load(new StringReader(propertyExpansion));
+            }
+            properties = new ImmutableProperties(merge);
+            merged.put(key, properties);
+        }
+        return properties;
+    }
+
+    private LoadedProperties load(final URL url) throws IOException {
+        final LoadedProperties cached = loaded.get(url.toExternalForm());
+        final File file = toFile(url);
+        if (file != null) {
+            final String stamp = file.lastModified() + ":" + file.length();
+            if (cached != null && cached.stamp.equals(stamp)) {
+                Metrics.hit(Metrics.CHECKSTYLE_PROPERTIES_CACHE);
+                return cached;
+            }
+            final URLConnection read = url.openConnection();
+            read.setUseCaches(false);
+            return read(url, stamp, read);
+        }
+
+        final URLConnection connection = url.openConnection();
+        // don't keep jar files open
+        connection.setUseCaches(false);
+        if (connection instanceof HttpURLConnection) {
+            ((HttpURLConnection) connection).setRequestMethod("HEAD");
+        }
+        final long lastModified = connection.getLastModified();
+        final String etag = connection.getHeaderField("ETag");
+        if (connection instanceof HttpURLConnection) {
+            ((HttpURLConnection) connection).disconnect();
+        } else {
+            connection.getInputStream().close();
+        }
+        final String stamp = lastModified + ":" + etag;
+        // without any stamp, the content is always read again
+        if (cached != null && cached.stamp.equals(stamp) && (lastModified > 0 || etag != null)) {
+            Metrics.hit(Metrics.CHECKSTYLE_PROPERTIES_CACHE);
+            return cached;
+        }
+        final URLConnection read = url.openConnection();
+        read.setUseCaches(false);
+        return read(url, stamp, read);
+    }
+
+    private LoadedProperties read(final URL url, final String stamp, final URLConnection connection)
+            throws IOException {
+        Metrics.miss(Metrics.CHECKSTYLE_PROPERTIES_CACHE);
+        final Properties properties = new Properties();
+        final InputStream inputStream = connection.getInputStream();
+        try {
+            properties.load(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        final LoadedProperties loadedProperties = new LoadedProperties(url, stamp, properties);
+        loaded.put(url.toExternalForm(), loadedProperties);
+        return loadedProperties;
+    }
+
+    /* local file behind a file: URL, or behind the jar of a jar: URL */
+    private File toFile(final URL url) {
+        URL fileURL = url;
+        if ("jar".equals(url.getProtocol())) {
+            final String path = url.getPath();
+            final int separator = path.indexOf("!/");
+            if (separator < 0) {
+                return null;
+            }
+            try {
+                fileURL = new URL(path.substring(0, separator));
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        if (!"file".equals(fileURL.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(fileURL.toURI());
+        } catch (URISyntaxException e) {
+            return new File(fileURL.getPath());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public void clear() {
+        loaded.clear();
+        merged.clear();
+    }
+
+    /**
+     * Properties loaded from an URL, with the stamp they were loaded at.
+     */
+    private static final class LoadedProperties {
+
+        private final URL url;
+
+        private final String stamp;
+
+        private final Properties properties;
+
+        LoadedProperties(final URL url, final String stamp, final Properties properties) {
+            this.url = url;
+            this.stamp = stamp;
+            this.properties = properties;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof LoadedProperties)) {
+                return false;
+            }
+            final LoadedProperties other = (LoadedProperties) obj;
+            return url.toExternalForm().equals(other.url.toExternalForm()) && stamp.equals(other.stamp);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * url.toExternalForm().hashCode() + stamp.hashCode();
+        }
+    }
+
+    /**
+     * Key of a merge: loaded properties and propertyExpansion.
+     */
+    private static final class MergeKey {
+
+        private final LoadedProperties location;
+
+        private final String propertyExpansion;
+
+        MergeKey(final LoadedProperties location, final String propertyExpansion) {
+            this.location = location;
+            this.propertyExpansion = propertyExpansion;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof MergeKey)) {
+                return false;
+            }
+            final MergeKey other = (MergeKey) obj;
+            return (location == null ? other.location == null : location.equals(other.location))
+                    && (propertyExpansion == null ? other.propertyExpansion == null : propertyExpansion
+                            .equals(other.propertyExpansion));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (location == null ? 0 : location.hashCode())
+                    + (propertyExpansion == null ? 0 : propertyExpansion.hashCode());
+        }
+    }
+
+    /**
+     * Least recently used entries are dropped past MAX_ENTRIES.
+     */
+    private static final class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        LruMap() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Entry<K, V> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    }
+
+    /**
+     * Properties shared by several projects, which must not be modified.
+     */
+    private static final class ImmutableProperties extends Properties {
+
+        private static final long serialVersionUID = 1L;
+
+        ImmutableProperties(final Properties properties) {
+            for (final Entry<Object, Object> entry : properties.entrySet()) {
+                super.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        @Override
+        public synchronized Object put(final Object key, final Object value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized void putAll(final Map<? extends Object, ? extends Object> t) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized Object remove(final Object key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized void clear() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<Entry<Object, Object>> entrySet() {
+            return Collections.unmodifiableSet(super.entrySet());
+        }
+
+        @Override
+        public Set<Object> keySet() {
+            return Collections.unmodifiableSet(super.keySet());
+        }
+
+        @Override
+        public Collection<Object> values() {
+            return Collections.unmodifiableCollection(super.values());
+        }
+    }
+}
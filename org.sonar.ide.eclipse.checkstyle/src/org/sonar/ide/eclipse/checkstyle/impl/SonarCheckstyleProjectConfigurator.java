@@ -1,6 +1,5 @@
 package org.sonar.ide.eclipse.checkstyle.impl;
 
-import java.net.URL;
 import java.util.List;
 import java.util.Properties;
 
@@ -8,41 +7,50 @@ import net.sf.eclipsecs.core.nature.CheckstyleNature;
 
 import org.apache.maven.project.MavenProject;
 import org.eclipse.checkstyle.configurator.Activator;
+import org.eclipse.checkstyle.configurator.api.CheckstyleConfigurationRequest;
 import org.eclipse.checkstyle.configurator.api.ICheckstyleProjectConfigurator;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.maven.ide.eclipse.project.MavenProjectChangedEvent;
 import org.maven.ide.eclipse.project.configurator.ProjectConfigurationRequest;
-import org.sonar.ide.eclipse.api.ISonarPlugin;
+import org.sonar.ide.eclipse.api.ISonarRuleSetPlugin;
+import org.sonar.ide.eclipse.api.SonarRuleSet;
 
 /**
- * This class add checkstyle rulesSet in project configuration.
+ * This class add checkstyle rulesSet in project configuration. eclipse-cs is
+ * pointed to the local copy of the sonar export.
  * 
  * @author Pierre BRUNIN
  * 
  */
-public class SonarCheckstyleProjectConfigurator implements ISonarPlugin {
+public class SonarCheckstyleProjectConfigurator implements ISonarRuleSetPlugin {
 
-    public String configure(ProjectConfigurationRequest projectConfigurationRequest, URL remoteRulesSet,
+    public String configure(ProjectConfigurationRequest projectConfigurationRequest, SonarRuleSet ruleSet,
             IProgressMonitor progressMonitor) {
-        final MavenProject mavenProject = projectConfigurationRequest.getMavenProject();
-        final IProject project = projectConfigurationRequest.getMavenProjectFacade().getProject();
-        final ICheckstyleProjectConfigurator checkstyleProjectConfigurator = Activator.getDefault()
-                .getCheckstyleProjectConfigurator();
-        final Properties properties = new Properties();
-        final List<String> compileSource = mavenProject.getCompileSourceRoots();
-        try {
-            checkstyleProjectConfigurator.updateProjectConfiguration(project, remoteRulesSet, properties,
-                    compileSource, "sonar-rules", progressMonitor);
-        } catch (final CoreException e) {
-            throw new RuntimeException(e);
-        }
+        updateProjectConfiguration(projectConfigurationRequest.getMavenProjectFacade().getProject(),
+                projectConfigurationRequest.getMavenProject(), ruleSet);
         return CheckstyleNature.NATURE_ID;
     }
 
-    public void mavenProjectChanged(MavenProjectChangedEvent event, URL remoteRulesSet, IProgressMonitor monitor) {
-        // TODO Auto-generated method stub
+    /**
+     * Checkstyle depends on both the ruleset and the compile source roots, the
+     * configuration is applied again whenever the sonar inputs changed.
+     */
+    public void mavenProjectChanged(MavenProjectChangedEvent event, SonarRuleSet ruleSet, IProgressMonitor monitor) {
+        updateProjectConfiguration(event.getMavenProject().getProject(), event.getMavenProject().getMavenProject(),
+                ruleSet);
     }
 
+    private void updateProjectConfiguration(final IProject project, final MavenProject mavenProject,
+            final SonarRuleSet ruleSet) {
+        final ICheckstyleProjectConfigurator checkstyleProjectConfigurator = Activator.getDefault()
+                .getCheckstyleProjectConfigurator();
+        final Properties properties = new Properties();
+        final List<String> compileSource = mavenProject.getCompileSourceRoots();
+        final List<String> testSource = mavenProject.getTestCompileSourceRoots();
+        // applied with the other modules of the import, in a single batch
+        checkstyleProjectConfigurator.requestProjectConfiguration(new CheckstyleConfigurationRequest(project,
+                ruleSet.getURL(), properties, compileSource, "sonar-rules", testSource, mavenProject.getBuild()
+                        .getDirectory()));
+    }
 }
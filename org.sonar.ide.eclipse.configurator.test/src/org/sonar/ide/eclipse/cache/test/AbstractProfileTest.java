@@ -0,0 +1,84 @@
+package org.sonar.ide.eclipse.cache.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.sonar.ide.eclipse.cache.ProfileCache;
+import org.sonar.ide.eclipse.cache.ProfileKey;
+
+/**
+ * Sonar host standing in for the tests of the profile cache, and temporary
+ * directory for the cached exports.
+ *
+ * @author Pierre BRUNIN
+ */
+public abstract class AbstractProfileTest {
+
+    protected static final String FORMAT = "checkstyle";
+
+    protected HttpStandIn host;
+
+    protected File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        host = new HttpStandIn();
+        directory = File.createTempFile("profiles", "");
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        host.stop();
+        delete(directory);
+    }
+
+    /**
+     * Serve the export of a profile on the host.
+     */
+    protected ProfileKey putExport(final String profile, final String content) {
+        final ProfileKey key = new ProfileKey(host.getBaseUrl(), profile, FORMAT);
+        host.put(key.getExportURL().getFile(), content.getBytes());
+        return key;
+    }
+
+    /**
+     * Return a cache in a sub-directory of the temporary directory.
+     */
+    protected ProfileCache newCache(final String name, final long freshness, final int maxEntries) {
+        return new ProfileCache(new File(directory, name), freshness, ProfileCache.DEFAULT_MAX_AGE, maxEntries,
+                ProfileCache.DEFAULT_MAX_SIZE, ProfileCache.DEFAULT_CONNECT_TIMEOUT,
+                ProfileCache.DEFAULT_READ_TIMEOUT);
+    }
+
+    protected String read(final File file) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final InputStream inputStream = new FileInputStream(file);
+        try {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        } finally {
+            inputStream.close();
+        }
+        return outputStream.toString();
+    }
+
+    private void delete(final File file) {
+        final File[] files = file.listFiles();
+        if (files != null) {
+            for (final File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
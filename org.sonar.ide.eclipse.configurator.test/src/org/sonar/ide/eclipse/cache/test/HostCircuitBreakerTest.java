@@ -0,0 +1,71 @@
+package org.sonar.ide.eclipse.cache.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.ide.eclipse.cache.HostCircuitBreaker;
+
+public class HostCircuitBreakerTest {
+
+    protected final static String HOST = "http://sonar.example.org";
+
+    protected final static String OTHER_HOST = "http://sonar.example.com";
+
+    @Test
+    public void openTest() {
+        final HostCircuitBreaker breaker = new HostCircuitBreaker(2, HostCircuitBreaker.DEFAULT_COOL_DOWN);
+        Assert.assertTrue(breaker.allowRequest(HOST));
+
+        Assert.assertFalse(breaker.recordFailure(HOST));
+        Assert.assertFalse(breaker.isOpen(HOST));
+        Assert.assertTrue(breaker.allowRequest(HOST));
+
+        // only the failure reaching the threshold opens the circuit
+        Assert.assertTrue(breaker.recordFailure(HOST));
+        Assert.assertTrue(breaker.isOpen(HOST));
+        Assert.assertFalse(breaker.recordFailure(HOST));
+        Assert.assertFalse(breaker.allowRequest(HOST));
+
+        // hosts are independent
+        Assert.assertFalse(breaker.isOpen(OTHER_HOST));
+        Assert.assertTrue(breaker.allowRequest(OTHER_HOST));
+    }
+
+    @Test
+    public void successTest() {
+        final HostCircuitBreaker breaker = new HostCircuitBreaker(2, HostCircuitBreaker.DEFAULT_COOL_DOWN);
+
+        // failures must be consecutive
+        breaker.recordFailure(HOST);
+        breaker.recordSuccess(HOST);
+        breaker.recordFailure(HOST);
+        Assert.assertFalse(breaker.isOpen(HOST));
+        Assert.assertTrue(breaker.allowRequest(HOST));
+    }
+
+    @Test
+    public void halfOpenTest() throws InterruptedException {
+        final HostCircuitBreaker breaker = new HostCircuitBreaker(1, 200L);
+        breaker.recordFailure(HOST);
+        Assert.assertFalse(breaker.allowRequest(HOST));
+
+        // after the cool-down, a single request probes the host
+        Thread.sleep(300L);
+        Assert.assertFalse(breaker.isOpen(HOST));
+        Assert.assertTrue(breaker.allowRequest(HOST));
+        Assert.assertFalse(breaker.allowRequest(HOST));
+
+        // failed probe opens the circuit for another cool-down, already reported
+        Assert.assertFalse(breaker.recordFailure(HOST));
+        Assert.assertTrue(breaker.isOpen(HOST));
+        Assert.assertFalse(breaker.allowRequest(HOST));
+
+        // successful probe closes it
+        Thread.sleep(300L);
+        Assert.assertTrue(breaker.allowRequest(HOST));
+        breaker.recordSuccess(HOST);
+        Assert.assertFalse(breaker.isOpen(HOST));
+        Assert.assertTrue(breaker.allowRequest(HOST));
+        Assert.assertTrue(breaker.allowRequest(HOST));
+        Assert.assertTrue(breaker.recordFailure(HOST));
+    }
+}
@@ -0,0 +1,100 @@
+package org.sonar.ide.eclipse.cache.test;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.ide.eclipse.cache.CachedProfile;
+import org.sonar.ide.eclipse.cache.ProfileCache;
+import org.sonar.ide.eclipse.cache.ProfileKey;
+import org.sonar.ide.eclipse.cache.UnexpectedResponseException;
+
+public class ProfileCacheTest extends AbstractProfileTest {
+
+    @Test
+    public void freshExportTest() throws IOException {
+        final ProfileKey key = putExport("fresh", "<module name=\"Checker\"/>");
+        final ProfileCache cache = newCache("cache", ProfileCache.DEFAULT_FRESHNESS, ProfileCache.DEFAULT_MAX_ENTRIES);
+
+        final CachedProfile first = cache.get(key);
+        final CachedProfile second = cache.get(key);
+
+        // fresh export is served without any request
+        Assert.assertEquals(1, host.getRequestCount());
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(first.getFile(), second.getFile());
+        Assert.assertEquals("<module name=\"Checker\"/>", read(second.getFile()));
+    }
+
+    @Test
+    public void revalidateTest() throws IOException {
+        final ProfileKey key = putExport("revalidate", "<module name=\"Checker\"/>");
+        final ProfileCache cache = newCache("cache", 0L, ProfileCache.DEFAULT_MAX_ENTRIES);
+
+        final CachedProfile first = cache.get(key);
+        Assert.assertNotNull(first.getEtag());
+
+        // stale export is revalidated, the host answers 304
+        final CachedProfile second = cache.get(key);
+        Assert.assertEquals(2, host.getRequestCount());
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(first.getHash(), second.getHash());
+        Assert.assertEquals(first.getFile(), second.getFile());
+        Assert.assertTrue(second.getFetchedAt() >= first.getFetchedAt());
+
+        // changed export is downloaded again
+        putExport("revalidate", "<module name=\"TreeWalker\"/>");
+        final CachedProfile third = cache.get(key);
+        Assert.assertEquals(3, host.getRequestCount());
+        Assert.assertEquals(2, cache.getMissCount());
+        Assert.assertFalse(first.getHash().equals(third.getHash()));
+        Assert.assertEquals("<module name=\"TreeWalker\"/>", read(third.getFile()));
+        Assert.assertEquals(third.getHash(), cache.getCached(key).getHash());
+    }
+
+    @Test
+    public void evictTest() throws IOException {
+        final ProfileKey key1 = putExport("evict1", "<module name=\"Checker\"/>");
+        final ProfileKey key2 = putExport("evict2", "<module name=\"TreeWalker\"/>");
+        final ProfileKey key3 = putExport("evict3", "<module name=\"JavadocMethod\"/>");
+        final ProfileCache cache = newCache("cache", ProfileCache.DEFAULT_FRESHNESS, 2);
+
+        final CachedProfile profile1 = cache.get(key1);
+        final CachedProfile profile2 = cache.get(key2);
+        Assert.assertEquals(0, cache.getEvictionCount());
+
+        // least recently used first
+        final long now = System.currentTimeMillis();
+        profile1.getFile().setLastModified(now - 60 * 1000L);
+        profile2.getFile().setLastModified(now - 30 * 1000L);
+        cache.get(key3);
+
+        Assert.assertEquals(1, cache.getEvictionCount());
+        Assert.assertNull(cache.getCached(key1));
+        Assert.assertNotNull(cache.getCached(key2));
+        Assert.assertNotNull(cache.getCached(key3));
+        // data file is kept for a while, a build may still read it
+        Assert.assertTrue(profile1.getFile().isFile());
+
+        // evicted export is downloaded again
+        cache.get(key1);
+        Assert.assertEquals(4, host.getRequestCount());
+        Assert.assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void missingExportTest() throws IOException {
+        final ProfileKey key = new ProfileKey(host.getBaseUrl(), "missing", FORMAT);
+        final ProfileCache cache = newCache("cache", ProfileCache.DEFAULT_FRESHNESS, ProfileCache.DEFAULT_MAX_ENTRIES);
+        try {
+            cache.get(key);
+            Assert.fail("missing export loaded");
+        } catch (final UnexpectedResponseException e) {
+            Assert.assertEquals(404, e.getStatus());
+            Assert.assertFalse(e.isServerError());
+        }
+        Assert.assertNull(cache.getCached(key));
+    }
+}
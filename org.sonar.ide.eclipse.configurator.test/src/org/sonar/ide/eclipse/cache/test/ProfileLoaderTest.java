@@ -0,0 +1,183 @@
+package org.sonar.ide.eclipse.cache.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.ide.eclipse.cache.CachedProfile;
+import org.sonar.ide.eclipse.cache.HostCircuitBreaker;
+import org.sonar.ide.eclipse.cache.HostUnavailableException;
+import org.sonar.ide.eclipse.cache.ProfileCache;
+import org.sonar.ide.eclipse.cache.ProfileKey;
+import org.sonar.ide.eclipse.cache.ProfileLoader;
+import org.sonar.ide.eclipse.cache.ProfileLoaderListener;
+import org.sonar.ide.eclipse.cache.ProfileSnapshot;
+import org.sonar.ide.eclipse.cache.UnexpectedResponseException;
+
+public class ProfileLoaderTest extends AbstractProfileTest {
+
+    @Test
+    public void concurrentLoadTest() throws Exception {
+        final ProfileKey key = putExport("concurrent", "<module name=\"Checker\"/>");
+        final ProfileLoader loader = new ProfileLoader(newCache("cache", ProfileCache.DEFAULT_FRESHNESS,
+                ProfileCache.DEFAULT_MAX_ENTRIES));
+        // keep the first request pending while the others start
+        host.setLatency(500L);
+
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<CachedProfile>> results = new ArrayList<Future<CachedProfile>>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(new Callable<CachedProfile>() {
+                    public CachedProfile call() throws Exception {
+                        start.await();
+                        return loader.load(key);
+                    }
+                }));
+            }
+            start.countDown();
+            final String hash = results.get(0).get().getHash();
+            for (final Future<CachedProfile> result : results) {
+                Assert.assertEquals(hash, result.get().getHash());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertEquals(1, host.getRequestCount());
+        Assert.assertEquals(1, loader.getLoadCount());
+        Assert.assertEquals(threads - 1, loader.getCoalescedCount());
+    }
+
+    @Test
+    public void sessionTest() throws IOException {
+        final ProfileKey key = new ProfileKey(host.getBaseUrl(), "session", FORMAT);
+        final ProfileLoader loader = new ProfileLoader(newCache("cache", 0L, ProfileCache.DEFAULT_MAX_ENTRIES));
+
+        // a missing export is requested once per session
+        for (int i = 0; i < 2; i++) {
+            try {
+                loader.load(key);
+                Assert.fail("missing export loaded");
+            } catch (final UnexpectedResponseException e) {
+                Assert.assertEquals(404, e.getStatus());
+            }
+        }
+        Assert.assertEquals(1, host.getRequestCount());
+
+        // and again in the next session
+        putExport("session", "<module name=\"Checker\"/>");
+        loader.endSession();
+        loader.load(key);
+        loader.load(key);
+        Assert.assertEquals(2, host.getRequestCount());
+        Assert.assertEquals(2, loader.getLoadCount());
+        Assert.assertEquals(2, loader.getCoalescedCount());
+    }
+
+    @Test
+    public void circuitBreakerTest() throws Exception {
+        final ProfileKey key = putExport("breaker", "<module name=\"Checker\"/>");
+        final ProfileLoader loader = new ProfileLoader(newCache("cache", 0L, ProfileCache.DEFAULT_MAX_ENTRIES),
+                new HostCircuitBreaker(2, 500L), ProfileLoader.DEFAULT_SESSION);
+        final CachedProfile loaded = loader.load(key);
+
+        // failures are served the last cached export until the circuit opens
+        host.setAvailable(false);
+        for (int i = 0; i < 2; i++) {
+            loader.endSession();
+            Assert.assertEquals(loaded.getHash(), loader.load(key).getHash());
+        }
+        Assert.assertEquals(3, host.getRequestCount());
+        Assert.assertTrue(loader.getCircuitBreaker().isOpen(host.getBaseUrl()));
+
+        // open circuit: no request at all
+        loader.endSession();
+        Assert.assertEquals(loaded.getHash(), loader.load(key).getHash());
+        Assert.assertEquals(3, host.getRequestCount());
+        Assert.assertEquals(3, loader.getFallbackCount());
+
+        // half open after the cool-down: the probe closes the circuit
+        host.setAvailable(true);
+        Thread.sleep(600L);
+        loader.endSession();
+        Assert.assertEquals(loaded.getHash(), loader.load(key).getHash());
+        Assert.assertEquals(4, host.getRequestCount());
+        Assert.assertFalse(loader.getCircuitBreaker().isOpen(host.getBaseUrl()));
+        Assert.assertEquals(3, loader.getFallbackCount());
+    }
+
+    @Test
+    public void unavailableHostTest() throws IOException {
+        final ProfileKey key = putExport("unavailable", "<module name=\"Checker\"/>");
+        final ProfileLoader loader = new ProfileLoader(newCache("cache", 0L, ProfileCache.DEFAULT_MAX_ENTRIES),
+                new HostCircuitBreaker(1, HostCircuitBreaker.DEFAULT_COOL_DOWN), ProfileLoader.DEFAULT_SESSION);
+        host.setAvailable(false);
+
+        // nothing cached: the failure is reported
+        try {
+            loader.load(key);
+            Assert.fail("export loaded from an unavailable host");
+        } catch (final UnexpectedResponseException e) {
+            Assert.assertTrue(e.isServerError());
+        }
+        loader.endSession();
+        try {
+            loader.load(key);
+            Assert.fail("export loaded from an unavailable host");
+        } catch (final HostUnavailableException e) {
+            // circuit is open
+        }
+        Assert.assertEquals(1, host.getRequestCount());
+        Assert.assertEquals(0, loader.getFallbackCount());
+    }
+
+    @Test
+    public void listenerTest() throws IOException {
+        final ProfileKey cached = putExport("cached", "<module name=\"Checker\"/>");
+        final ProfileKey snapshotted = putExport("snapshotted", "<module name=\"TreeWalker\"/>");
+        final File archive = new File(directory, "snapshot.zip");
+        ProfileSnapshot.write(archive, Arrays.asList(newCache("snapshot", 0L, ProfileCache.DEFAULT_MAX_ENTRIES)
+                .get(snapshotted)));
+        final ProfileLoader loader = new ProfileLoader(newCache("cache", 0L, ProfileCache.DEFAULT_MAX_ENTRIES),
+                new HostCircuitBreaker(2, HostCircuitBreaker.DEFAULT_COOL_DOWN), ProfileLoader.DEFAULT_SESSION,
+                ProfileSnapshot.read(archive, new File(directory, "extracted")));
+        final List<String> events = new ArrayList<String>();
+        loader.addListener(new ProfileLoaderListener() {
+            public void hostUnavailable(final ProfileKey key, final IOException cause) {
+                events.add("unavailable " + key.getProfile());
+            }
+
+            public void cachedProfileServed(final CachedProfile profile, final IOException cause) {
+                events.add("cached " + profile.getKey().getProfile());
+            }
+
+            public void snapshotProfileServed(final CachedProfile profile, final IOException cause) {
+                events.add("snapshot " + profile.getKey().getProfile());
+            }
+        });
+        loader.load(cached);
+        Assert.assertTrue(events.isEmpty());
+
+        host.setAvailable(false);
+        loader.endSession();
+        loader.load(cached);
+        loader.load(snapshotted);
+        // open circuit is reported once
+        loader.endSession();
+        loader.load(cached);
+        Assert.assertEquals(Arrays.asList("cached cached", "unavailable snapshotted", "snapshot snapshotted",
+                "cached cached"), events);
+    }
+}
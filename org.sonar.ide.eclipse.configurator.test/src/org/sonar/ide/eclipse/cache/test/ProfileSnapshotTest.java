@@ -0,0 +1,78 @@
+package org.sonar.ide.eclipse.cache.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.sonar.ide.eclipse.cache.CachedProfile;
+import org.sonar.ide.eclipse.cache.HostCircuitBreaker;
+import org.sonar.ide.eclipse.cache.ProfileCache;
+import org.sonar.ide.eclipse.cache.ProfileKey;
+import org.sonar.ide.eclipse.cache.ProfileLoader;
+import org.sonar.ide.eclipse.cache.ProfileSnapshot;
+
+public class ProfileSnapshotTest extends AbstractProfileTest {
+
+    @Test
+    public void roundTripTest() throws IOException {
+        final ProfileKey key1 = putExport("snapshot1", "<module name=\"Checker\"/>");
+        final ProfileKey key2 = putExport("snapshot2", "<module name=\"TreeWalker\"/>");
+        final ProfileCache cache = newCache("cache", ProfileCache.DEFAULT_FRESHNESS, ProfileCache.DEFAULT_MAX_ENTRIES);
+        final CachedProfile profile1 = cache.get(key1);
+        final CachedProfile profile2 = cache.get(key2);
+
+        final File archive = new File(directory, "snapshot.zip");
+        ProfileSnapshot.write(archive, Arrays.asList(profile1, profile2));
+        final ProfileSnapshot snapshot = ProfileSnapshot.read(archive, new File(directory, "snapshot"));
+
+        Assert.assertEquals(2, snapshot.size());
+        for (final CachedProfile profile : new CachedProfile[] { profile1, profile2 }) {
+            final CachedProfile read = snapshot.get(profile.getKey());
+            Assert.assertNotNull(read);
+            Assert.assertEquals(profile.getHash(), read.getHash());
+            Assert.assertEquals(profile.getEtag(), read.getEtag());
+            Assert.assertEquals(profile.getLastModified(), read.getLastModified());
+            Assert.assertEquals(read(profile.getFile()), read(read.getFile()));
+        }
+        Assert.assertNull(snapshot.get(new ProfileKey(host.getBaseUrl(), "unknown", FORMAT)));
+    }
+
+    @Test
+    public void seedTest() throws IOException {
+        final ProfileKey key = putExport("seed", "<module name=\"Checker\"/>");
+        final ProfileCache cache = newCache("cache", ProfileCache.DEFAULT_FRESHNESS, ProfileCache.DEFAULT_MAX_ENTRIES);
+        final File archive = new File(directory, "snapshot.zip");
+        ProfileSnapshot.write(archive, Arrays.asList(cache.get(key)));
+        final ProfileSnapshot snapshot = ProfileSnapshot.read(archive, new File(directory, "snapshot"));
+
+        // a cold cache seeded by the snapshot only revalidates the export
+        final ProfileCache cold = newCache("cold", ProfileCache.DEFAULT_FRESHNESS, ProfileCache.DEFAULT_MAX_ENTRIES);
+        Assert.assertEquals(1, cold.seed(snapshot.getProfiles()));
+        Assert.assertEquals(0, cold.seed(snapshot.getProfiles()));
+        final CachedProfile seeded = cold.get(key);
+        Assert.assertEquals(2, host.getRequestCount());
+        Assert.assertEquals(0, cold.getMissCount());
+        Assert.assertEquals(1, cold.getHitCount());
+        Assert.assertEquals(snapshot.get(key).getHash(), seeded.getHash());
+    }
+
+    @Test
+    public void unavailableHostTest() throws IOException {
+        final ProfileKey key = putExport("unavailable", "<module name=\"Checker\"/>");
+        final ProfileCache cache = newCache("cache", ProfileCache.DEFAULT_FRESHNESS, ProfileCache.DEFAULT_MAX_ENTRIES);
+        final File archive = new File(directory, "snapshot.zip");
+        ProfileSnapshot.write(archive, Arrays.asList(cache.get(key)));
+        final ProfileSnapshot snapshot = ProfileSnapshot.read(archive, new File(directory, "snapshot"));
+
+        // nothing cached nor seeded: the snapshot is served
+        host.setAvailable(false);
+        final ProfileLoader loader = new ProfileLoader(newCache("cold", ProfileCache.DEFAULT_FRESHNESS,
+                ProfileCache.DEFAULT_MAX_ENTRIES), new HostCircuitBreaker(), ProfileLoader.DEFAULT_SESSION, snapshot);
+        final CachedProfile loaded = loader.load(key);
+        Assert.assertEquals(snapshot.get(key).getHash(), loaded.getHash());
+        Assert.assertEquals(1, loader.getFallbackCount());
+        Assert.assertEquals(2, host.getRequestCount());
+    }
+}
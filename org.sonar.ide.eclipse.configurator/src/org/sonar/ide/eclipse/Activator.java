@@ -1,12 +1,28 @@
 package org.sonar.ide.eclipse;
 
-import java.util.ArrayList;
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
+import org.sonar.ide.eclipse.api.ISonarRuleSetPlugin;
+import org.sonar.ide.eclipse.cache.HostCircuitBreaker;
+import org.sonar.ide.eclipse.cache.ProfileCache;
+import org.sonar.ide.eclipse.cache.ProfileLoader;
+import org.sonar.ide.eclipse.cache.ProfileSnapshot;
 
 /**
  * The activator class controls the plug-in life cycle
@@ -18,9 +34,23 @@ public class Activator extends AbstractUIPlugin {
 
     public static final String SONAR_M2ECLIPSE_CONFIGURATOR = "org.sonar.ide.eclipse.configurator";
 
+    /** Maximum number of concurrent profile downloads. */
+    public static final int MAX_CONCURRENT_DOWNLOADS = 4;
+
     // The shared instance
     private static Activator plugin;
 
+    // Set on start, published to the threads configuring projects
+    private volatile ProfileCache profileCache;
+
+    private volatile ProfileLoader profileLoader;
+
+    private volatile ProfileSession profileSession;
+
+    private volatile ExecutorService downloadExecutor;
+
+    private volatile SonarExtensions sonarExtensions;
+
     /**
      * The constructor
      */
@@ -37,6 +67,26 @@ public class Activator extends AbstractUIPlugin {
     public void start(BundleContext context) throws Exception {
         super.start(context);
         plugin = this;
+        final IPreferenceStore store = getPreferenceStore();
+        profileCache = new ProfileCache(getStateLocation().append("profiles").toFile(),
+                ProfileCache.DEFAULT_FRESHNESS, ProfileCache.DEFAULT_MAX_AGE, ProfileCache.DEFAULT_MAX_ENTRIES,
+                ProfileCache.DEFAULT_MAX_SIZE, store.getInt(PreferenceConstants.CONNECT_TIMEOUT), store
+                        .getInt(PreferenceConstants.READ_TIMEOUT));
+        final ProfileSnapshot snapshot = loadSnapshot(store.getString(PreferenceConstants.SNAPSHOT_LOCATION));
+        seedProfileCache(snapshot);
+        profileLoader = new ProfileLoader(profileCache, new HostCircuitBreaker(store
+                .getInt(PreferenceConstants.FAILURE_THRESHOLD), store.getLong(PreferenceConstants.COOL_DOWN)),
+                ProfileLoader.DEFAULT_SESSION, snapshot);
+        profileLoader.addListener(new ProfileConsole());
+        profileSession = new ProfileSession(profileLoader);
+        Job.getJobManager().addJobChangeListener(profileSession);
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_CONCURRENT_DOWNLOADS,
+                MAX_CONCURRENT_DOWNLOADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new DownloadThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        downloadExecutor = executor;
+        sonarExtensions = new SonarExtensions(Platform.getExtensionRegistry());
+        Platform.getExtensionRegistry().addRegistryChangeListener(sonarExtensions);
     }
 
     /*
@@ -47,10 +97,60 @@ public class Activator extends AbstractUIPlugin {
      * )
      */
     public void stop(BundleContext context) throws Exception {
+        Platform.getExtensionRegistry().removeRegistryChangeListener(sonarExtensions);
+        sonarExtensions = null;
+        downloadExecutor.shutdownNow();
+        downloadExecutor = null;
+        Job.getJobManager().removeJobChangeListener(profileSession);
+        profileSession = null;
+        profileLoader = null;
+        profileCache = null;
         plugin = null;
         super.stop(context);
     }
 
+    /**
+     * Extract the profile snapshot archive, a broken archive is reported and
+     * ignored.
+     */
+    private ProfileSnapshot loadSnapshot(final String location) {
+        if (location == null || location.trim().length() == 0) {
+            return ProfileSnapshot.EMPTY;
+        }
+        final File archive = new File(location.trim());
+        try {
+            final ProfileSnapshot snapshot = ProfileSnapshot.read(archive, getStateLocation().append("snapshot")
+                    .toFile());
+            getLog().log(new Status(Status.INFO, PLUGIN_ID, "Loaded " + snapshot.size() + " profile exports from "
+                    + archive));
+            return snapshot;
+        } catch (final IOException e) {
+            getLog().log(new Status(Status.WARNING, PLUGIN_ID, "Unable to load profile snapshot " + archive, e));
+        } catch (final RuntimeException e) {
+            getLog().log(new Status(Status.WARNING, PLUGIN_ID, "Invalid profile snapshot " + archive, e));
+        }
+        return ProfileSnapshot.EMPTY;
+    }
+
+    /**
+     * Seed the profile cache with the snapshot exports it does not hold yet,
+     * so a cold workspace revalidates them instead of downloading them.
+     */
+    private void seedProfileCache(final ProfileSnapshot snapshot) {
+        if (snapshot.size() == 0) {
+            return;
+        }
+        try {
+            final int seeded = profileCache.seed(snapshot.getProfiles());
+            if (seeded > 0) {
+                getLog().log(new Status(Status.INFO, PLUGIN_ID, "Seeded profile cache with " + seeded
+                        + " snapshot exports"));
+            }
+        } catch (final IOException e) {
+            getLog().log(new Status(Status.WARNING, PLUGIN_ID, "Unable to seed profile cache from snapshot", e));
+        }
+    }
+
     /**
      * Returns the shared instance
      * 
@@ -60,17 +160,80 @@ public class Activator extends AbstractUIPlugin {
         return plugin;
     }
 
-    private List<IConfigurationElement> sonarPlugins = null;
+    /**
+     * Returns the workspace cache of sonar profile exports
+     * 
+     * @return the profile cache
+     */
+    public ProfileCache getProfileCache() {
+        return profileCache;
+    }
 
+    /**
+     * Returns the loader sharing profile exports between the modules of an
+     * import
+     * 
+     * @return the profile loader
+     */
+    public ProfileLoader getProfileLoader() {
+        return profileLoader;
+    }
+
+    /**
+     * Returns the session of the profile loader, joined by each
+     * configuration
+     * 
+     * @return the profile session
+     */
+    ProfileSession getProfileSession() {
+        return profileSession;
+    }
+
+    /**
+     * Returns the bounded executor used to download profile exports
+     * 
+     * @return the download executor
+     */
+    public ExecutorService getDownloadExecutor() {
+        return downloadExecutor;
+    }
+
+    /**
+     * Returns the sonar plugin extensions. The list is immutable and safely
+     * shared by concurrent configurations, it is read again after the
+     * extension point changed.
+     * 
+     * @return the sonar plugin extensions
+     */
     public List<IConfigurationElement> getSonarExtension() {
-        if (sonarPlugins == null) {
-            sonarPlugins = new ArrayList<IConfigurationElement>();
-            final IConfigurationElement[] config = Platform.getExtensionRegistry().getConfigurationElementsFor(
-                    Activator.SONAR_M2ECLIPSE_CONFIGURATOR);
-            for (final IConfigurationElement e : config) {
-                sonarPlugins.add(e);
-            }
+        return sonarExtensions.getExtensions();
+    }
+
+    /**
+     * Returns the instance of a sonar plugin extension, created the first
+     * time it is needed and shared by every configuration.
+     * 
+     * @param configurationElement
+     *            one of the {@link #getSonarExtension()} elements
+     * @return the sonar plugin
+     * @throws CoreException
+     *             if the extension can't be created
+     */
+    public ISonarRuleSetPlugin getSonarPlugin(final IConfigurationElement configurationElement) throws CoreException {
+        return sonarExtensions.getInstance(configurationElement);
+    }
+
+    /**
+     * Name download threads and don't let them block the VM exit.
+     */
+    private static class DownloadThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "Sonar profile download " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
         }
-        return sonarPlugins;
     }
 }
@@ -0,0 +1,33 @@
+package org.sonar.ide.eclipse;
+
+/**
+ * Preference keys of the sonar configurator. Values can be set in the
+ * workspace preferences or in plugin_customization.ini for headless
+ * workspaces.
+ * 
+ * @author Pierre BRUNIN
+ * 
+ */
+public final class PreferenceConstants {
+
+    /** Connect timeout to the sonar server, in milliseconds. */
+    public static final String CONNECT_TIMEOUT = "connectTimeout";
+
+    /** Read timeout from the sonar server, in milliseconds. */
+    public static final String READ_TIMEOUT = "readTimeout";
+
+    /** Number of failures before a sonar host is considered unavailable. */
+    public static final String FAILURE_THRESHOLD = "failureThreshold";
+
+    /** Delay before an unavailable sonar host is tried again, in milliseconds. */
+    public static final String COOL_DOWN = "coolDown";
+
+    /**
+     * Profile snapshot archive, serving the exports never downloaded from
+     * unavailable sonar hosts. Empty for none.
+     */
+    public static final String SNAPSHOT_LOCATION = "snapshotLocation";
+
+    private PreferenceConstants() {
+    }
+}
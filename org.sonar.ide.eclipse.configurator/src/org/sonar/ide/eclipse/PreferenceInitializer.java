@@ -0,0 +1,25 @@
+package org.sonar.ide.eclipse;
+
+import org.eclipse.core.runtime.preferences.AbstractPreferenceInitializer;
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.sonar.ide.eclipse.cache.HostCircuitBreaker;
+import org.sonar.ide.eclipse.cache.ProfileCache;
+
+/**
+ * Initialize default preference values of the sonar configurator.
+ * 
+ * @author Pierre BRUNIN
+ * 
+ */
+public class PreferenceInitializer extends AbstractPreferenceInitializer {
+
+    @Override
+    public void initializeDefaultPreferences() {
+        final IPreferenceStore store = Activator.getDefault().getPreferenceStore();
+        store.setDefault(PreferenceConstants.CONNECT_TIMEOUT, ProfileCache.DEFAULT_CONNECT_TIMEOUT);
+        store.setDefault(PreferenceConstants.READ_TIMEOUT, ProfileCache.DEFAULT_READ_TIMEOUT);
+        store.setDefault(PreferenceConstants.FAILURE_THRESHOLD, HostCircuitBreaker.DEFAULT_FAILURE_THRESHOLD);
+        store.setDefault(PreferenceConstants.COOL_DOWN, HostCircuitBreaker.DEFAULT_COOL_DOWN);
+        store.setDefault(PreferenceConstants.SNAPSHOT_LOCATION, "");
+    }
+}
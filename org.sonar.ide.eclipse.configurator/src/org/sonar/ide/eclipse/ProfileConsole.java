@@ -0,0 +1,60 @@
+package org.sonar.ide.eclipse;
+
+import java.io.IOException;
+import java.util.Date;
+
+import org.maven.ide.eclipse.MavenPlugin;
+import org.maven.ide.eclipse.core.MavenConsole;
+import org.sonar.ide.eclipse.cache.CachedProfile;
+import org.sonar.ide.eclipse.cache.ProfileKey;
+import org.sonar.ide.eclipse.cache.ProfileLoader;
+import org.sonar.ide.eclipse.cache.ProfileLoaderListener;
+
+/**
+ * Warn in the Maven console when the {@link ProfileLoader} gives up on a
+ * sonar host and when projects are configured with an export which may be
+ * out of date, next to the import messages the user reads.
+ *
+ * @author Pierre BRUNIN
+ *
+ */
+class ProfileConsole implements ProfileLoaderListener {
+
+    public void hostUnavailable(final ProfileKey key, final IOException cause) {
+        logError("Sonar host " + key.getHostUrl() + " is unavailable (" + cause.getMessage()
+                + "), cached profile exports are used until it is tried again");
+    }
+
+    public void cachedProfileServed(final CachedProfile profile, final IOException cause) {
+        // seeded entries were never checked against the host
+        final String checked = profile.getFetchedAt() > 0 ? "last checked on " + new Date(profile.getFetchedAt())
+                : "seeded from the profile snapshot";
+        logMessage("WARNING: using the cached " + profile.getKey() + ", " + checked
+                + ", the sonar host is unavailable");
+    }
+
+    public void snapshotProfileServed(final CachedProfile profile, final IOException cause) {
+        logMessage("WARNING: using the snapshot " + profile.getKey() + " of " + new Date(profile.getFetchedAt())
+                + ", the sonar host is unavailable");
+    }
+
+    private void logMessage(final String msg) {
+        final MavenConsole console = getConsole();
+        if (console != null) {
+            console.logMessage(msg);
+        }
+    }
+
+    private void logError(final String msg) {
+        final MavenConsole console = getConsole();
+        if (console != null) {
+            console.logError(msg);
+        }
+    }
+
+    /* null once m2eclipse is stopped */
+    private MavenConsole getConsole() {
+        final MavenPlugin plugin = MavenPlugin.getDefault();
+        return plugin == null ? null : plugin.getConsole();
+    }
+}
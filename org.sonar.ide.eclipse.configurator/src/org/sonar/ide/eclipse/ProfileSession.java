@@ -0,0 +1,56 @@
+package org.sonar.ide.eclipse;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.sonar.ide.eclipse.cache.ProfileLoader;
+
+/**
+ * Ends the session of the {@link ProfileLoader} when the jobs configuring
+ * projects are done.
+ * <p>
+ * m2eclipse configures the modules of an import or of an update one after
+ * the other in a job. The modules configured by the running jobs share the
+ * exports and failures loaded by the first one, and the next import loads
+ * them again. Configurations running outside of a job rely on the session
+ * delay of the loader.
+ *
+ * @author Pierre BRUNIN
+ *
+ */
+class ProfileSession extends JobChangeAdapter {
+
+    private final ProfileLoader profileLoader;
+
+    private final Set<Job> jobs = new HashSet<Job>();
+
+    ProfileSession(final ProfileLoader profileLoader) {
+        this.profileLoader = profileLoader;
+    }
+
+    /**
+     * Join the session from a configuration: the session lasts until the
+     * current job is done.
+     */
+    void join() {
+        final Job job = Job.getJobManager().currentJob();
+        if (job != null) {
+            synchronized (jobs) {
+                jobs.add(job);
+            }
+        }
+    }
+
+    @Override
+    public void done(final IJobChangeEvent event) {
+        synchronized (jobs) {
+            if (!jobs.remove(event.getJob()) || !jobs.isEmpty()) {
+                return;
+            }
+        }
+        profileLoader.endSession();
+    }
+}
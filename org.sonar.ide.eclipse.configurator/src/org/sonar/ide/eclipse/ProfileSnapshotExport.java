@@ -0,0 +1,81 @@
+package org.sonar.ide.eclipse;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+import org.sonar.ide.eclipse.cache.CachedProfile;
+import org.sonar.ide.eclipse.cache.ProfileKey;
+import org.sonar.ide.eclipse.cache.ProfileSnapshot;
+
+/**
+ * Headless application writing a profile snapshot archive, to be set as
+ * {@link PreferenceConstants#SNAPSHOT_LOCATION} on workspaces which can't
+ * reach the sonar hosts:
+ *
+ * <pre>
+ * eclipse -nosplash -application org.sonar.ide.eclipse.configurator.exportProfileSnapshot
+ *     -host http://sonar:9000 -profile "Sonar way" [-profile ...] [-host ...] -output snapshot.zip
+ * </pre>
+ *
+ * Each profile is exported from the previous host, in the format of every
+ * sonar extension (checkstyle, pmd, etc). Formats a host can't export, such as
+ * those of sonar plugins it does not run, are skipped with a warning.
+ *
+ * @author Pierre BRUNIN
+ *
+ */
+public class ProfileSnapshotExport implements IApplication {
+
+    public Object start(IApplicationContext context) throws Exception {
+        final String[] args = (String[]) context.getArguments().get(IApplicationContext.APPLICATION_ARGS);
+        final List<String[]> profiles = new ArrayList<String[]>();
+        String host = null;
+        File output = null;
+        for (int i = 0; args != null && i + 1 < args.length; i++) {
+            if ("-host".equals(args[i])) {
+                host = args[++i];
+            } else if ("-profile".equals(args[i])) {
+                if (host == null) {
+                    throw new IllegalArgumentException("-host must come before -profile " + args[i + 1]);
+                }
+                profiles.add(new String[] { host, args[++i] });
+            } else if ("-output".equals(args[i])) {
+                output = new File(args[++i]);
+            }
+        }
+        if (output == null || profiles.isEmpty()) {
+            System.err.println("Usage: -host <sonar.host.url> -profile <sonar.profile> [...] -output <archive>");
+            return Integer.valueOf(1);
+        }
+
+        // straight to the sonar hosts, the current snapshot is not exported again
+        final List<CachedProfile> exports = new ArrayList<CachedProfile>();
+        for (final String[] profile : profiles) {
+            for (final IConfigurationElement configurationElement : Activator.getDefault().getSonarExtension()) {
+                final ProfileKey key = new ProfileKey(profile[0], profile[1], configurationElement
+                        .getAttribute("plugin_name"));
+                try {
+                    exports.add(Activator.getDefault().getProfileCache().get(key));
+                } catch (final IOException e) {
+                    System.err.println("Skipped " + key + ": " + e.getMessage());
+                }
+            }
+        }
+        if (exports.isEmpty()) {
+            System.err.println("No profile export to write to " + output);
+            return Integer.valueOf(1);
+        }
+        ProfileSnapshot.write(output, exports);
+        System.out.println("Wrote " + exports.size() + " profile exports to " + output);
+        return EXIT_OK;
+    }
+
+    public void stop() {
+        // the export runs to completion
+    }
+}
@@ -1,22 +1,27 @@
 package org.sonar.ide.eclipse;
 
-import java.io.UnsupportedEncodingException;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLEncoder;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.maven.model.Plugin;
 import org.apache.maven.project.MavenProject;
+import org.eclipse.configurator.metrics.Metrics;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.InvalidRegistryObjectException;
 import org.eclipse.core.runtime.Status;
 import org.maven.ide.eclipse.project.MavenProjectChangedEvent;
 import org.maven.ide.eclipse.project.configurator.AbstractProjectConfigurator;
 import org.maven.ide.eclipse.project.configurator.ProjectConfigurationRequest;
-import org.sonar.ide.eclipse.api.ISonarPlugin;
+import org.sonar.ide.eclipse.api.ISonarRuleSetPlugin;
+import org.sonar.ide.eclipse.api.SonarRuleSet;
+import org.sonar.ide.eclipse.cache.CachedProfile;
+import org.sonar.ide.eclipse.cache.HostUnavailableException;
+import org.sonar.ide.eclipse.cache.ProfileKey;
 
 /**
  * 
@@ -29,11 +34,25 @@ public class SonarConfigurator extends AbstractProjectConfigurator {
     public final static String SONAR_PLUGIN_KEY = "org.codehaus.mojo:sonar-maven-plugin";
 
     /**
-     * Foreach sonar extension, resolve permalink url and call project
-     * configuration. This last step is implement in sonar extension.
+     * Foreach sonar extension, download permalink and call project
+     * configuration with the local ruleset. This last step is implement in
+     * sonar extension, instantiated once a ruleset exists for it.
+     * Permalinks are resolved concurrently so the configuration waits for the
+     * slowest export only.
      */
     @Override
     public void configure(ProjectConfigurationRequest projectConfigurationRequest, IProgressMonitor progressMonitor) throws CoreException {
+        final long start = Metrics.start();
+        // the modules configured by the same job share the loaded exports
+        Activator.getDefault().getProfileSession().join();
+        try {
+            configureExtensions(projectConfigurationRequest, progressMonitor);
+        } finally {
+            Metrics.stop(Metrics.SONAR_CONFIGURE, start);
+        }
+    }
+
+    private void configureExtensions(ProjectConfigurationRequest projectConfigurationRequest, IProgressMonitor progressMonitor) throws CoreException {
         final MavenProject mavenProject = projectConfigurationRequest.getMavenProject();
         if (projectConfigurationRequest != null) {
             final Plugin sonar = getSonarPlugin(mavenProject);
@@ -50,12 +69,18 @@ public class SonarConfigurator extends AbstractProjectConfigurator {
                 }
                 if (sonarProfile != null && sonarHostUrl != null) {
                     final List<IConfigurationElement> configurationElements = Activator.getDefault().getSonarExtension();
+                    // download every export concurrently, then configure in extension order
+                    final List<Future<SonarRuleSet>> ruleSets = new ArrayList<Future<SonarRuleSet>>(configurationElements.size());
                     for (IConfigurationElement configurationElement : configurationElements) {
                         // plugin name (checkstyle, pmd, etc)
                         final String pluginName = configurationElement.getAttribute("plugin_name");
-                        final URL ruleSet = resolveURLConfig(pluginName, sonarProfile, sonarHostUrl);
+                        ruleSets.add(submitResolveURLConfig(pluginName, sonarProfile, sonarHostUrl));
+                    }
+                    for (int i = 0; i < configurationElements.size(); i++) {
+                        final IConfigurationElement configurationElement = configurationElements.get(i);
+                        final SonarRuleSet ruleSet = waitFor(ruleSets.subList(i, ruleSets.size()));
                         if (ruleSet != null) {
-                            final ISonarPlugin sonarPlugin = (ISonarPlugin) configurationElement.createExecutableExtension("class");
+                            final ISonarRuleSetPlugin sonarPlugin = Activator.getDefault().getSonarPlugin(configurationElement);
                             final String nature = sonarPlugin.configure(projectConfigurationRequest, ruleSet, progressMonitor);
                             if (nature != null) {
                                 addNature(projectConfigurationRequest.getMavenProjectFacade().getProject(), nature, progressMonitor);
@@ -68,42 +93,142 @@ public class SonarConfigurator extends AbstractProjectConfigurator {
     }
 
     /**
-     * Return sonar permalinks.
-     * 
-     * @param mavenProject
-     *            mavenProjet give sonar.profile, sonar.host.url properties
-     * @param configurationElement
-     *            give plugin name (checkstyle, pmd, etc)
-     * @return return permalink or null if is not accessible
+     * Schedule {@link #resolveURLConfig(String, String, String)} on the
+     * download executor.
      */
-    private URL resolveURLConfig(final String pluginName, final String sonarProfile, final String sonarHostUrl) {
+    private Future<SonarRuleSet> submitResolveURLConfig(final String pluginName, final String sonarProfile,
+            final String sonarHostUrl) {
         if (pluginName == null) {
             Activator.getDefault().getLog().log(new Status(Status.ERROR, Activator.PLUGIN_ID, "Pluging name missing"));
             throw new IllegalArgumentException("Pluging name missing");
         }
-        final String antislash = sonarHostUrl.endsWith("/") ? "" : "/";
-        String sonarPermalink;
-        try {
-            sonarPermalink = sonarHostUrl + antislash + "profiles/export?format=" + pluginName + "&language=java&name="
-                    + URLEncoder.encode(URLEncoder.encode(sonarProfile, "UTF-8"), "UTF-8");
+        return Activator.getDefault().getDownloadExecutor().submit(new Callable<SonarRuleSet>() {
+            public SonarRuleSet call() {
+                return resolveURLConfig(pluginName, sonarProfile, sonarHostUrl);
+            }
+        });
+    }
 
-            URL url = new URL(sonarPermalink);
-            if (checkURl(url)) {
-                return url;
+    /**
+     * Wait for the first pending download. Remaining downloads are cancelled
+     * if the configuration is interrupted.
+     * 
+     * @param pending
+     *            pending downloads, first one is waited for
+     * @return ruleset or null if is not accessible
+     */
+    private SonarRuleSet waitFor(final List<Future<SonarRuleSet>> pending) throws CoreException {
+        try {
+            return pending.get(0).get();
+        } catch (final InterruptedException e) {
+            for (final Future<SonarRuleSet> future : pending) {
+                future.cancel(true);
             }
+            Thread.currentThread().interrupt();
+            throw new CoreException(new Status(Status.CANCEL, Activator.PLUGIN_ID, "Sonar configuration interrupted", e));
+        } catch (final ExecutionException e) {
+            Activator.getDefault().getLog().log(new Status(Status.ERROR, Activator.PLUGIN_ID, e.getCause().getMessage(), e.getCause()));
+            return null;
+        }
+    }
+
+    /**
+     * Return local copy of sonar permalinks, downloaded or revalidated through
+     * the workspace profile cache. Modules of a reactor share the same load.
+     * 
+     * @param pluginName
+     *            plugin name (checkstyle, pmd, etc)
+     * @param sonarProfile
+     *            sonar.profile property
+     * @param sonarHostUrl
+     *            sonar.host.url property
+     * @return return ruleset or null if is not accessible
+     */
+    private SonarRuleSet resolveURLConfig(final String pluginName, final String sonarProfile, final String sonarHostUrl) {
+        final ProfileKey key = new ProfileKey(sonarHostUrl, sonarProfile, pluginName);
+        final long start = Metrics.start();
+        try {
+            final CachedProfile profile = Activator.getDefault().getProfileLoader().load(key);
+            return new SonarRuleSet(pluginName, profile.getFile(), profile.getHash());
+        } catch (final HostUnavailableException e) {
+            // the Maven console reported the host when it failed
+            Activator.getDefault().getLog().log(new Status(Status.WARNING, Activator.PLUGIN_ID, e.getMessage()));
+            return null;
+        } catch (final IOException e) {
+            Activator.getDefault().getLog().log(new Status(Status.ERROR, Activator.PLUGIN_ID, e.getMessage(), e));
             return null;
-        } catch (final InvalidRegistryObjectException e) {
-            throw new RuntimeException(e);
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
-        } catch (MalformedURLException e) {
-            throw new RuntimeException(e);
+        } finally {
+            Metrics.stop(Metrics.SONAR_RESOLVE_URL_CONFIG, start);
         }
     }
 
+    /**
+     * Return the ruleset already in the workspace profile cache, without any
+     * network access. The ruleset is downloaded only if it was never cached.
+     */
+    private SonarRuleSet resolveCachedRuleSet(final String pluginName, final String sonarProfile,
+            final String sonarHostUrl) {
+        final ProfileKey key = new ProfileKey(sonarHostUrl, sonarProfile, pluginName);
+        final CachedProfile profile = Activator.getDefault().getProfileCache().getCached(key);
+        if (profile == null) {
+            return resolveURLConfig(pluginName, sonarProfile, sonarHostUrl);
+        }
+        return new SonarRuleSet(pluginName, profile.getFile(), profile.getHash());
+    }
+
+    /**
+     * Compare sonar inputs of the old and new maven project. Nothing is done
+     * if they are identical, rulesets are downloaded again only if the sonar
+     * plugin, sonar.profile or sonar.host.url changed. Each sonar extension
+     * decides what to re-apply from the event.
+     */
     @Override
     public void mavenProjectChanged(MavenProjectChangedEvent event, IProgressMonitor monitor) throws CoreException {
         super.mavenProjectChanged(event, monitor);
+        final long start = Metrics.start();
+        Activator.getDefault().getProfileSession().join();
+        try {
+            applyProjectChanges(event, monitor);
+        } finally {
+            Metrics.stop(Metrics.SONAR_PROJECT_CHANGED, start);
+        }
+    }
+
+    private void applyProjectChanges(MavenProjectChangedEvent event, IProgressMonitor monitor) throws CoreException {
+        if (event.getMavenProject() == null || event.getMavenProject().getMavenProject() == null) {
+            return;
+        }
+        final SonarFingerprint current = SonarFingerprint.of(event.getMavenProject().getMavenProject());
+        final SonarFingerprint old = SonarFingerprint.of(event.getOldMavenProject() == null ? null : event
+                .getOldMavenProject().getMavenProject());
+        if (!current.isConfigured() || current.equals(old)) {
+            return;
+        }
+        final String sonarProfile = current.getSonarProfile();
+        final String sonarHostUrl = current.getSonarHostUrl();
+        final boolean rulesChanged = current.rulesChanged(old);
+        final List<IConfigurationElement> configurationElements = Activator.getDefault().getSonarExtension();
+        final List<Future<SonarRuleSet>> ruleSets = new ArrayList<Future<SonarRuleSet>>(configurationElements.size());
+        if (rulesChanged) {
+            for (IConfigurationElement configurationElement : configurationElements) {
+                ruleSets.add(submitResolveURLConfig(configurationElement.getAttribute("plugin_name"), sonarProfile,
+                        sonarHostUrl));
+            }
+        }
+        for (int i = 0; i < configurationElements.size(); i++) {
+            final IConfigurationElement configurationElement = configurationElements.get(i);
+            final SonarRuleSet ruleSet;
+            if (rulesChanged) {
+                ruleSet = waitFor(ruleSets.subList(i, ruleSets.size()));
+            } else {
+                ruleSet = resolveCachedRuleSet(configurationElement.getAttribute("plugin_name"), sonarProfile,
+                        sonarHostUrl);
+            }
+            if (ruleSet != null) {
+                final ISonarRuleSetPlugin sonarPlugin = Activator.getDefault().getSonarPlugin(configurationElement);
+                sonarPlugin.mavenProjectChanged(event, ruleSet, monitor);
+            }
+        }
     }
 
     /**
@@ -121,17 +246,4 @@ public class SonarConfigurator extends AbstractProjectConfigurator {
         }
         return mavenProject.getPlugin(SONAR_PLUGIN_KEY);
     }
-
-    private boolean checkURl(final URL url) {
-        try {
-            url.openStream();
-            return true;
-        } catch (final MalformedURLException e) {
-            Activator.getDefault().getLog().log(new Status(Status.ERROR, Activator.PLUGIN_ID, e.getMessage(), e));
-            return false;
-        } catch (final Exception e) {
-            Activator.getDefault().getLog().log(new Status(Status.ERROR, Activator.PLUGIN_ID, e.getMessage(), e));
-            return false;
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package org.sonar.ide.eclipse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.configurator.metrics.Metrics;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtensionDelta;
+import org.eclipse.core.runtime.IExtensionRegistry;
+import org.eclipse.core.runtime.IRegistryChangeEvent;
+import org.eclipse.core.runtime.IRegistryChangeListener;
+import org.sonar.ide.eclipse.api.ISonarRuleSetPlugin;
+import org.sonar.ide.eclipse.api.SonarPluginAdapter;
+
+/**
+ * Sonar extensions and their instances.
+ * <p>
+ * Each extension is instantiated once, the first time a ruleset exists for
+ * its plugin_name, so the bundle of a tool is not activated before a
+ * profile exports rules for it. Extensions and instances are forgotten when
+ * the extension point changes, so installed or removed bundles are taken
+ * into account by the next configuration.
+ *
+ * @author Pierre BRUNIN
+ *
+ */
+class SonarExtensions implements IRegistryChangeListener {
+
+    private final IExtensionRegistry registry;
+
+    private volatile List<IConfigurationElement> extensions;
+
+    private final ConcurrentMap<IConfigurationElement, ISonarRuleSetPlugin> instances = new ConcurrentHashMap<IConfigurationElement, ISonarRuleSetPlugin>();
+
+    SonarExtensions(final IExtensionRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Returns the sonar plugin extensions. The list is immutable and safely
+     * shared by concurrent configurations; concurrent first calls may read
+     * the registry twice, but build equal lists.
+     */
+    List<IConfigurationElement> getExtensions() {
+        List<IConfigurationElement> current = extensions;
+        if (current == null) {
+            final IConfigurationElement[] config = registry
+                    .getConfigurationElementsFor(Activator.SONAR_M2ECLIPSE_CONFIGURATOR);
+            current = Collections.unmodifiableList(new ArrayList<IConfigurationElement>(Arrays.asList(config)));
+            extensions = current;
+        }
+        return current;
+    }
+
+    /**
+     * Returns the shared instance of an extension, created on first use.
+     * Concurrent first calls may create two instances, only one is kept.
+     *
+     * @throws CoreException
+     *             if the extension can't be created
+     */
+    ISonarRuleSetPlugin getInstance(final IConfigurationElement configurationElement) throws CoreException {
+        final ISonarRuleSetPlugin instance = instances.get(configurationElement);
+        if (instance != null) {
+            Metrics.hit(Metrics.SONAR_EXTENSIONS);
+            return instance;
+        }
+        Metrics.miss(Metrics.SONAR_EXTENSIONS);
+        final ISonarRuleSetPlugin created = SonarPluginAdapter.adapt(configurationElement
+                .createExecutableExtension("class"));
+        final ISonarRuleSetPlugin previous = instances.putIfAbsent(configurationElement, created);
+        return previous == null ? created : previous;
+    }
+
+    public void registryChanged(final IRegistryChangeEvent event) {
+        for (final IExtensionDelta delta : event.getExtensionDeltas()) {
+            if (Activator.SONAR_M2ECLIPSE_CONFIGURATOR.equals(delta.getExtensionPoint().getUniqueIdentifier())) {
+                clear();
+                return;
+            }
+        }
+    }
+
+    void clear() {
+        extensions = null;
+        instances.clear();
+    }
+}
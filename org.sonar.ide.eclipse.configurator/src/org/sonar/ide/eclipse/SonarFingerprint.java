@@ -0,0 +1,102 @@
+package org.sonar.ide.eclipse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Inputs of the sonar configuration of a maven project: sonar plugin
+ * presence, sonar.profile, sonar.host.url and compile source roots. Comparing
+ * the fingerprints of the old and new project tells which part of the
+ * configuration has to be applied again.
+ * 
+ * @author Pierre BRUNIN
+ * 
+ */
+public final class SonarFingerprint {
+
+    private final boolean sonarPlugin;
+
+    private final String sonarProfile;
+
+    private final String sonarHostUrl;
+
+    private final List<String> compileSourceRoots;
+
+    private SonarFingerprint(final boolean sonarPlugin, final String sonarProfile, final String sonarHostUrl,
+            final List<String> compileSourceRoots) {
+        this.sonarPlugin = sonarPlugin;
+        this.sonarProfile = sonarProfile;
+        this.sonarHostUrl = sonarHostUrl;
+        this.compileSourceRoots = compileSourceRoots;
+    }
+
+    /**
+     * Return fingerprint of a maven project.
+     * 
+     * @param mavenProject
+     *            maven project, may be null
+     */
+    @SuppressWarnings("unchecked")
+    public static SonarFingerprint of(final MavenProject mavenProject) {
+        if (mavenProject == null) {
+            return new SonarFingerprint(false, null, null, Collections.<String> emptyList());
+        }
+        return new SonarFingerprint(SonarConfigurator.getSonarPlugin(mavenProject) != null, mavenProject
+                .getProperties().getProperty("sonar.profile"), mavenProject.getProperties().getProperty(
+                "sonar.host.url"), new ArrayList<String>(mavenProject.getCompileSourceRoots()));
+    }
+
+    /**
+     * Return true if sonar plugin, sonar.profile and sonar.host.url are set.
+     */
+    public boolean isConfigured() {
+        return sonarPlugin && sonarProfile != null && sonarHostUrl != null;
+    }
+
+    public String getSonarProfile() {
+        return sonarProfile;
+    }
+
+    public String getSonarHostUrl() {
+        return sonarHostUrl;
+    }
+
+    /**
+     * Return true if the rulesets to download differ.
+     */
+    public boolean rulesChanged(final SonarFingerprint old) {
+        return sonarPlugin != old.sonarPlugin || !equals(sonarProfile, old.sonarProfile)
+                || !equals(sonarHostUrl, old.sonarHostUrl);
+    }
+
+    /**
+     * Return true if the analyzed sources differ.
+     */
+    public boolean sourcesChanged(final SonarFingerprint old) {
+        return !compileSourceRoots.equals(old.compileSourceRoots);
+    }
+
+    private static boolean equals(final String s1, final String s2) {
+        return s1 == null ? s2 == null : s1.equals(s2);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof SonarFingerprint)) {
+            return false;
+        }
+        final SonarFingerprint other = (SonarFingerprint) obj;
+        return !rulesChanged(other) && !sourcesChanged(other);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = sonarPlugin ? 1 : 0;
+        result = 31 * result + (sonarProfile == null ? 0 : sonarProfile.hashCode());
+        result = 31 * result + (sonarHostUrl == null ? 0 : sonarHostUrl.hashCode());
+        return 31 * result + compileSourceRoots.hashCode();
+    }
+}
@@ -0,0 +1,27 @@
+package org.sonar.ide.eclipse.api;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.maven.ide.eclipse.project.MavenProjectChangedEvent;
+import org.maven.ide.eclipse.project.configurator.ProjectConfigurationRequest;
+
+/**
+ * Sonar extension receiving the ruleset already downloaded by the
+ * configurator, so each ruleset crosses the network once per configuration.
+ * Extensions still implementing {@link ISonarPlugin} are called through
+ * {@link SonarPluginAdapter}.
+ * <p>
+ * A single instance of each extension is created, when a ruleset first
+ * exists for it, and is called by concurrent configurations.
+ * 
+ * @author Pierre BRUNIN
+ * 
+ */
+public interface ISonarRuleSetPlugin {
+
+    public String configure(final ProjectConfigurationRequest projectConfigurationRequest, final SonarRuleSet ruleSet,
+            final IProgressMonitor progressMonitor);
+
+    public void mavenProjectChanged(final MavenProjectChangedEvent event, final SonarRuleSet ruleSet,
+            final IProgressMonitor monitor);
+
+}
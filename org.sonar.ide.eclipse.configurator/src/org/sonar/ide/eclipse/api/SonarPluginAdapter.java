@@ -0,0 +1,49 @@
+package org.sonar.ide.eclipse.api;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.maven.ide.eclipse.project.MavenProjectChangedEvent;
+import org.maven.ide.eclipse.project.configurator.ProjectConfigurationRequest;
+
+/**
+ * Call an {@link ISonarPlugin} extension with the URL of the local copy of the
+ * ruleset.
+ * 
+ * @author Pierre BRUNIN
+ * 
+ */
+public class SonarPluginAdapter implements ISonarRuleSetPlugin {
+
+    private final ISonarPlugin sonarPlugin;
+
+    public SonarPluginAdapter(final ISonarPlugin sonarPlugin) {
+        this.sonarPlugin = sonarPlugin;
+    }
+
+    /**
+     * Return an {@link ISonarRuleSetPlugin} for an extension instance.
+     * 
+     * @param extension
+     *            instance of ISonarRuleSetPlugin or ISonarPlugin
+     * @throws IllegalArgumentException
+     *             if extension implements none of the sonar interfaces
+     */
+    public static ISonarRuleSetPlugin adapt(final Object extension) {
+        if (extension instanceof ISonarRuleSetPlugin) {
+            return (ISonarRuleSetPlugin) extension;
+        }
+        if (extension instanceof ISonarPlugin) {
+            return new SonarPluginAdapter((ISonarPlugin) extension);
+        }
+        throw new IllegalArgumentException(extension.getClass().getName() + " is not a sonar extension");
+    }
+
+    public String configure(final ProjectConfigurationRequest projectConfigurationRequest, final SonarRuleSet ruleSet,
+            final IProgressMonitor progressMonitor) {
+        return sonarPlugin.configure(projectConfigurationRequest, ruleSet.getURL(), progressMonitor);
+    }
+
+    public void mavenProjectChanged(final MavenProjectChangedEvent event, final SonarRuleSet ruleSet,
+            final IProgressMonitor monitor) {
+        sonarPlugin.mavenProjectChanged(event, ruleSet.getURL(), monitor);
+    }
+}
@@ -0,0 +1,93 @@
+package org.sonar.ide.eclipse.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+
+/**
+ * A sonar ruleset already downloaded in the workspace profile cache.
+ * 
+ * @author Pierre BRUNIN
+ * 
+ */
+public final class SonarRuleSet {
+
+    private final String pluginName;
+
+    private final File file;
+
+    private final String hash;
+
+    public SonarRuleSet(final String pluginName, final File file, final String hash) {
+        this.pluginName = pluginName;
+        this.file = file;
+        this.hash = hash;
+    }
+
+    /**
+     * Plugin name (checkstyle, pmd, etc) the ruleset was exported for.
+     */
+    public String getPluginName() {
+        return pluginName;
+    }
+
+    /**
+     * Local copy of the ruleset. The file belongs to the cache and must not be
+     * modified.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * URL of the local copy, for tools expecting an URL.
+     */
+    public URL getURL() {
+        try {
+            return file.toURI().toURL();
+        } catch (final MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * SHA-1 of the ruleset content, as hexadecimal.
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * Open the local copy. The caller must close the stream.
+     */
+    public InputStream openStream() throws IOException {
+        return new FileInputStream(file);
+    }
+
+    /**
+     * Read the whole ruleset.
+     */
+    public byte[] getContent() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream((int) file.length());
+        final InputStream inputStream = openStream();
+        try {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        } finally {
+            inputStream.close();
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Override
+    public String toString() {
+        return pluginName + " ruleset " + file + " (" + hash + ")";
+    }
+}
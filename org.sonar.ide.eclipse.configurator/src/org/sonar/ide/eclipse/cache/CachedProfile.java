@@ -0,0 +1,134 @@
+package org.sonar.ide.eclipse.cache;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Properties;
+
+/**
+ * A profile export stored in the {@link ProfileCache}, with the validators
+ * needed to revalidate it against the sonar server.
+ *
+ * @author Pierre BRUNIN
+ *
+ */
+public final class CachedProfile {
+
+    /** Name of the data file, in the cache directory. */
+    static final String FILE = "file";
+
+    private static final String ETAG = "etag";
+
+    private static final String LAST_MODIFIED = "lastModified";
+
+    private static final String FETCHED_AT = "fetchedAt";
+
+    private static final String HASH = "hash";
+
+    private final ProfileKey key;
+
+    private final File file;
+
+    private final String etag;
+
+    private final long lastModified;
+
+    private final long fetchedAt;
+
+    private final String hash;
+
+    public CachedProfile(final ProfileKey key, final File file, final String etag, final long lastModified,
+            final long fetchedAt, final String hash) {
+        this.key = key;
+        this.file = file;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.fetchedAt = fetchedAt;
+        this.hash = hash;
+    }
+
+    public ProfileKey getKey() {
+        return key;
+    }
+
+    /**
+     * Local copy of the export.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    public URL getURL() {
+        try {
+            return file.toURI().toURL();
+        } catch (final MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * ETag returned by the server, or null.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Last-Modified returned by the server, or 0.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Time of the last download or successful revalidation.
+     */
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    /**
+     * SHA-1 of the export content, as hexadecimal.
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * Return same entry, revalidated at the given time.
+     */
+    public CachedProfile revalidated(final long time) {
+        return new CachedProfile(key, file, etag, lastModified, time, hash);
+    }
+
+    Properties toProperties() {
+        final Properties properties = new Properties();
+        properties.setProperty(FILE, file.getName());
+        if (etag != null) {
+            properties.setProperty(ETAG, etag);
+        }
+        properties.setProperty(LAST_MODIFIED, String.valueOf(lastModified));
+        properties.setProperty(FETCHED_AT, String.valueOf(fetchedAt));
+        properties.setProperty(HASH, hash);
+        return properties;
+    }
+
+    static CachedProfile fromProperties(final ProfileKey key, final File directory, final Properties properties) {
+        final String name = properties.getProperty(FILE);
+        final String hash = properties.getProperty(HASH);
+        if (name == null || hash == null) {
+            return null;
+        }
+        try {
+            return new CachedProfile(key, new File(directory, name), properties.getProperty(ETAG), Long.parseLong(properties.getProperty(
+                    LAST_MODIFIED, "0")), Long.parseLong(properties.getProperty(FETCHED_AT, "0")), hash);
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return key + " (" + hash + ")";
+    }
+}
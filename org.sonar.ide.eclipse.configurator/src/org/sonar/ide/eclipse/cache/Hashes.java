@@ -0,0 +1,59 @@
+package org.sonar.ide.eclipse.cache;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Digest helpers used to name and identify cached profile exports.
+ *
+ * @author Pierre BRUNIN
+ *
+ */
+public final class Hashes {
+
+    private static final String ALGORITHM = "SHA-1";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Hashes() {
+    }
+
+    /**
+     * Return a new SHA-1 digest.
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Return SHA-1 of an UTF-8 string, as hexadecimal.
+     */
+    public static String sha1(final String value) {
+        try {
+            return toHex(newDigest().digest(value.getBytes("UTF-8")));
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Return SHA-1 of a byte array, as hexadecimal.
+     */
+    public static String sha1(final byte[] value) {
+        return toHex(newDigest().digest(value));
+    }
+
+    public static String toHex(final byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,112 @@
+package org.sonar.ide.eclipse.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remember sonar hosts which failed, so the following configurations fail
+ * fast instead of waiting for a timeout each.
+ * <p>
+ * After the failure threshold is reached, a host is considered unavailable
+ * until the cool-down delay has elapsed. A single request is then let through
+ * to probe the host again: a success closes the circuit, a failure opens it
+ * for another cool-down.
+ *
+ * @author Pierre BRUNIN
+ *
+ */
+public class HostCircuitBreaker {
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 2;
+
+    public static final long DEFAULT_COOL_DOWN = 5 * 60 * 1000L;
+
+    private final int failureThreshold;
+
+    private final long coolDown;
+
+    private final ConcurrentMap<String, HostState> hosts = new ConcurrentHashMap<String, HostState>();
+
+    public HostCircuitBreaker() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_COOL_DOWN);
+    }
+
+    public HostCircuitBreaker(final int failureThreshold, final long coolDown) {
+        this.failureThreshold = failureThreshold;
+        this.coolDown = coolDown;
+    }
+
+    /**
+     * Return true if a request to the host may be tried.
+     */
+    public boolean allowRequest(final String host) {
+        final HostState state = hosts.get(host);
+        return state == null || state.allowRequest(System.currentTimeMillis());
+    }
+
+    public void recordSuccess(final String host) {
+        hosts.remove(host);
+    }
+
+    /**
+     * Record a failed request to the host.
+     *
+     * @return true if this failure opened the circuit, false if the circuit
+     *         is still closed or was already open or half open
+     */
+    public boolean recordFailure(final String host) {
+        HostState state = hosts.get(host);
+        if (state == null) {
+            final HostState created = new HostState();
+            state = hosts.putIfAbsent(host, created);
+            if (state == null) {
+                state = created;
+            }
+        }
+        return state.recordFailure(System.currentTimeMillis());
+    }
+
+    /**
+     * Return true if the host is currently considered unavailable.
+     */
+    public boolean isOpen(final String host) {
+        final HostState state = hosts.get(host);
+        return state != null && state.isOpen(System.currentTimeMillis());
+    }
+
+    /**
+     * Failures of a single host.
+     */
+    private class HostState {
+
+        private int failures;
+
+        private long openUntil;
+
+        synchronized boolean allowRequest(final long now) {
+            if (failures < failureThreshold) {
+                return true;
+            }
+            if (now < openUntil) {
+                return false;
+            }
+            // half open: let this request probe the host, hold the others
+            openUntil = now + coolDown;
+            return true;
+        }
+
+        synchronized boolean recordFailure(final long now) {
+            final boolean closed = failures < failureThreshold;
+            failures++;
+            if (failures >= failureThreshold) {
+                openUntil = now + coolDown;
+                return closed;
+            }
+            return false;
+        }
+
+        synchronized boolean isOpen(final long now) {
+            return failures >= failureThreshold && now < openUntil;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.sonar.ide.eclipse.cache;
+
+import java.io.IOException;
+
+/**
+ * The sonar host is known to be unavailable and no cached export exists.
+ *
+ * @author Pierre BRUNIN
+ *
+ */
+public class HostUnavailableException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public HostUnavailableException(final ProfileKey key) {
+        super("Sonar host " + key.getHostUrl() + " is unavailable, no cached export for " + key);
+    }
+}
@@ -0,0 +1,408 @@
+package org.sonar.ide.eclipse.cache;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URLConnection;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.configurator.metrics.Metrics;
+
+/**
+ * Workspace level cache of sonar profile exports.
+ * <p>
+ * Exports are stored on disk, keyed by {@link ProfileKey}. An entry younger
+ * than the freshness delay is served without any network access, an older one
+ * is revalidated with ETag / Last-Modified so an unchanged profile only costs
+ * a 304 response. Entries not used for the max age are evicted, and the least
+ * recently used ones are evicted when the cache exceeds its size limits.
+ * <p>
+ * An entry is a metadata file naming its data file, itself named after the
+ * content hash. Data files are never rewritten: a new export is written to a
+ * new data file, then published by replacing the metadata file. Data files no
+ * entry references anymore are deleted after a delay, as they may have been
+ * handed out just before.
+ * <p>
+ * A cold cache may be seeded with the exports of a {@link ProfileSnapshot}.
+ *
+ * @author Pierre BRUNIN
+ *
+ */
+public class ProfileCache {
+
+    /** Delay during which an entry is used without revalidation. */
+    public static final long DEFAULT_FRESHNESS = 60 * 1000L;
+
+    /** Entries not used since this delay are evicted. */
+    public static final long DEFAULT_MAX_AGE = 7 * 24 * 60 * 60 * 1000L;
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    public static final long DEFAULT_MAX_SIZE = 64 * 1024 * 1024L;
+
+    public static final int DEFAULT_CONNECT_TIMEOUT = 5 * 1000;
+
+    public static final int DEFAULT_READ_TIMEOUT = 30 * 1000;
+
+    private static final String DATA_SUFFIX = ".xml";
+
+    private static final String META_SUFFIX = ".properties";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** Delay before deleting the data files no entry references. */
+    private static final long UNREFERENCED_DELAY = 10 * 60 * 1000L;
+
+    private final File directory;
+
+    private final long freshness;
+
+    private final long maxAge;
+
+    private final int maxEntries;
+
+    private final long maxSize;
+
+    private final int connectTimeout;
+
+    private final int readTimeout;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ProfileCache(final File directory) {
+        this(directory, DEFAULT_FRESHNESS, DEFAULT_MAX_AGE, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_SIZE,
+                DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+    }
+
+    public ProfileCache(final File directory, final long freshness, final long maxAge, final int maxEntries,
+            final long maxSize, final int connectTimeout, final int readTimeout) {
+        this.directory = directory;
+        this.freshness = freshness;
+        this.maxAge = maxAge;
+        this.maxEntries = maxEntries;
+        this.maxSize = maxSize;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Return the export of a profile, downloading or revalidating it if
+     * needed.
+     *
+     * @param key
+     *            the profile export
+     * @return cached entry, never null
+     * @throws IOException
+     *             if the export is not cached and can't be downloaded
+     */
+    public CachedProfile get(final ProfileKey key) throws IOException {
+        final CachedProfile cached = getCached(key);
+        final long now = System.currentTimeMillis();
+        if (cached != null && now - cached.getFetchedAt() < freshness) {
+            hits.incrementAndGet();
+            Metrics.hit(Metrics.SONAR_PROFILE_CACHE);
+            touch(cached);
+            return cached;
+        }
+
+        final URLConnection connection = key.getExportURL().openConnection();
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        if (cached != null) {
+            if (cached.getEtag() != null) {
+                connection.setRequestProperty("If-None-Match", cached.getEtag());
+            }
+            if (cached.getLastModified() > 0) {
+                connection.setIfModifiedSince(cached.getLastModified());
+            }
+        }
+        if (connection instanceof HttpURLConnection) {
+            final int status = ((HttpURLConnection) connection).getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                hits.incrementAndGet();
+                Metrics.hit(Metrics.SONAR_PROFILE_CACHE);
+                final CachedProfile revalidated = cached.revalidated(now);
+                writeMetadata(revalidated);
+                touch(revalidated);
+                return revalidated;
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                ((HttpURLConnection) connection).disconnect();
+                throw new UnexpectedResponseException(status, key.getExportURL());
+            }
+        }
+
+        misses.incrementAndGet();
+        Metrics.miss(Metrics.SONAR_PROFILE_CACHE);
+        final CachedProfile stored = store(key, connection, now);
+        evict();
+        return stored;
+    }
+
+    /**
+     * Return the cached export of a profile, without any network access.
+     *
+     * @return cached entry or null
+     */
+    public CachedProfile getCached(final ProfileKey key) {
+        final Properties properties = readMetadata(new File(directory, key.getFileName() + META_SUFFIX));
+        if (properties == null) {
+            return null;
+        }
+        final CachedProfile cached = CachedProfile.fromProperties(key, directory, properties);
+        if (cached == null || !cached.getFile().isFile()) {
+            return null;
+        }
+        return cached;
+    }
+
+    /* return the properties of a metadata file, or null if it can't be read */
+    private Properties readMetadata(final File meta) {
+        if (!meta.isFile()) {
+            return null;
+        }
+        final Properties properties = new Properties();
+        try {
+            final InputStream inputStream = new FileInputStream(meta);
+            try {
+                properties.load(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        } catch (final IOException e) {
+            return null;
+        }
+        return properties;
+    }
+
+    private CachedProfile store(final ProfileKey key, final URLConnection connection, final long now)
+            throws IOException {
+        final String hash;
+        final InputStream inputStream = connection.getInputStream();
+        try {
+            hash = writeData(key, inputStream);
+        } finally {
+            inputStream.close();
+        }
+        final File data = getDataFile(key, hash);
+        Metrics.addBytes(Metrics.SONAR_EXPORT_BYTES, data.length());
+        final CachedProfile stored = new CachedProfile(key, data, connection.getHeaderField("ETag"), connection
+                .getLastModified(), now, hash);
+        touch(stored);
+        writeMetadata(stored);
+        return stored;
+    }
+
+    /**
+     * Seed the cache with exports loaded elsewhere, usually from a
+     * {@link ProfileSnapshot}. Exports already cached are left unchanged.
+     * Seeded entries are stale: the first {@link #get(ProfileKey)}
+     * revalidates them with the validators of the export, so an unchanged
+     * profile only costs a 304 response, and they are served as the last
+     * cached export while the host is unavailable.
+     *
+     * @return number of seeded entries
+     */
+    public synchronized int seed(final Collection<CachedProfile> profiles) throws IOException {
+        int seeded = 0;
+        for (final CachedProfile profile : profiles) {
+            final ProfileKey key = profile.getKey();
+            if (getCached(key) != null) {
+                continue;
+            }
+            final File data = getDataFile(key, profile.getHash());
+            if (!data.isFile()) {
+                final InputStream inputStream = new FileInputStream(profile.getFile());
+                try {
+                    if (!profile.getHash().equals(writeData(key, inputStream))) {
+                        throw new IOException("Content of " + profile.getFile() + " does not match its SHA-1");
+                    }
+                } finally {
+                    inputStream.close();
+                }
+            }
+            final CachedProfile stale = new CachedProfile(key, data, profile.getEtag(), profile.getLastModified(),
+                    0L, profile.getHash());
+            touch(stale);
+            writeMetadata(stale);
+            seeded++;
+        }
+        return seeded;
+    }
+
+    /**
+     * Write an export to its data file, named after the content hash, and
+     * return the hash. The export is written aside, then renamed: an
+     * existing data file has the same content.
+     */
+    private String writeData(final ProfileKey key, final InputStream inputStream) throws IOException {
+        if (!directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Unable to create cache directory " + directory);
+        }
+        final File temp = File.createTempFile(key.getFileName(), TEMP_SUFFIX, directory);
+        final MessageDigest digest = Hashes.newDigest();
+        try {
+            final InputStream digestStream = new DigestInputStream(inputStream, digest);
+            final OutputStream outputStream = new FileOutputStream(temp);
+            try {
+                final byte[] buffer = new byte[8192];
+                int read;
+                while ((read = digestStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                }
+            } finally {
+                outputStream.close();
+            }
+            final String hash = Hashes.toHex(digest.digest());
+            final File data = getDataFile(key, hash);
+            if (!temp.renameTo(data) && !data.isFile()) {
+                throw new IOException("Unable to store " + key + " in " + data);
+            }
+            return hash;
+        } finally {
+            if (temp.exists()) {
+                temp.delete();
+            }
+        }
+    }
+
+    private File getDataFile(final ProfileKey key, final String hash) {
+        return new File(directory, key.getFileName() + '.' + hash + DATA_SUFFIX);
+    }
+
+    /**
+     * Publish an entry: the metadata file is written aside, then renamed, so
+     * readers see either the previous entry or this one.
+     */
+    private void writeMetadata(final CachedProfile profile) throws IOException {
+        final File meta = new File(directory, profile.getKey().getFileName() + META_SUFFIX);
+        final File temp = File.createTempFile(profile.getKey().getFileName(), TEMP_SUFFIX, directory);
+        try {
+            final OutputStream outputStream = new FileOutputStream(temp);
+            try {
+                profile.toProperties().store(outputStream, profile.getKey().toString());
+            } finally {
+                outputStream.close();
+            }
+            if (!temp.renameTo(meta)) {
+                // renaming over an existing file fails on some platforms
+                if (!meta.delete() || !temp.renameTo(meta)) {
+                    throw new IOException("Unable to store " + profile.getKey() + " in " + meta);
+                }
+            }
+        } finally {
+            if (temp.exists()) {
+                temp.delete();
+            }
+        }
+    }
+
+    /* last modification time of the data file is the last access time */
+    private void touch(final CachedProfile profile) {
+        profile.getFile().setLastModified(System.currentTimeMillis());
+    }
+
+    /**
+     * Remove entries older than max age, then least recently used entries
+     * until the cache fits in its size limits. Only the metadata of an
+     * evicted entry is removed; data files are deleted once no entry
+     * references them for a while.
+     */
+    public synchronized void evict() {
+        final File[] metas = directory.listFiles(new FileFilter() {
+            public boolean accept(final File file) {
+                return file.getName().endsWith(META_SUFFIX);
+            }
+        });
+        if (metas == null) {
+            return;
+        }
+        final List<File[]> entries = new ArrayList<File[]>();
+        for (final File meta : metas) {
+            final Properties properties = readMetadata(meta);
+            final String name = properties == null ? null : properties.getProperty(CachedProfile.FILE);
+            if (name != null) {
+                entries.add(new File[] { meta, new File(directory, name) });
+            }
+        }
+        // most recently used first, the data file modification time is the last access time
+        Collections.sort(entries, new Comparator<File[]>() {
+            public int compare(final File[] o1, final File[] o2) {
+                final long l1 = o1[1].lastModified();
+                final long l2 = o2[1].lastModified();
+                return l1 < l2 ? 1 : l1 == l2 ? 0 : -1;
+            }
+        });
+        final long now = System.currentTimeMillis();
+        final Set<String> referenced = new HashSet<String>();
+        long size = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            final File meta = entries.get(i)[0];
+            final File data = entries.get(i)[1];
+            size += data.length();
+            // the most recently used entry is always kept
+            if (i > 0 && (i >= maxEntries || size > maxSize || now - data.lastModified() > maxAge)) {
+                meta.delete();
+                evictions.incrementAndGet();
+            } else {
+                referenced.add(data.getName());
+            }
+        }
+        deleteUnreferenced(referenced, now);
+    }
+
+    /* data files of evicted or replaced entries, and temporary files left by a crash */
+    private void deleteUnreferenced(final Set<String> referenced, final long now) {
+        final File[] files = directory.listFiles(new FileFilter() {
+            public boolean accept(final File file) {
+                return (file.getName().endsWith(DATA_SUFFIX) || file.getName().endsWith(TEMP_SUFFIX))
+                        && !referenced.contains(file.getName());
+            }
+        });
+        if (files == null) {
+            return;
+        }
+        for (final File file : files) {
+            if (now - file.lastModified() > UNREFERENCED_DELAY) {
+                file.delete();
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ProfileCache[" + directory + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                + "]";
+    }
+}
@@ -0,0 +1,88 @@
+package org.sonar.ide.eclipse.cache;
+
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLEncoder;
+
+/**
+ * Identify a sonar profile export: (sonar.host.url, sonar.profile, format).
+ *
+ * @author Pierre BRUNIN
+ *
+ */
+public final class ProfileKey {
+
+    private final String hostUrl;
+
+    private final String profile;
+
+    private final String format;
+
+    public ProfileKey(final String hostUrl, final String profile, final String format) {
+        if (hostUrl == null || profile == null || format == null) {
+            throw new IllegalArgumentException("host url, profile and format are required");
+        }
+        this.hostUrl = hostUrl;
+        this.profile = profile;
+        this.format = format;
+    }
+
+    public String getHostUrl() {
+        return hostUrl;
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * Return sonar permalink of the profile export.
+     */
+    public URL getExportURL() {
+        final String antislash = hostUrl.endsWith("/") ? "" : "/";
+        try {
+            return new URL(hostUrl + antislash + "profiles/export?format=" + format + "&language=java&name="
+                    + URLEncoder.encode(URLEncoder.encode(profile, "UTF-8"), "UTF-8"));
+        } catch (final UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        } catch (final MalformedURLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Return a file system safe name for this key.
+     */
+    public String getFileName() {
+        return Hashes.sha1(hostUrl + '\n' + profile + '\n' + format);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ProfileKey)) {
+            return false;
+        }
+        final ProfileKey other = (ProfileKey) obj;
+        return hostUrl.equals(other.hostUrl) && profile.equals(other.profile) && format.equals(other.format);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hostUrl.hashCode();
+        result = 31 * result + profile.hashCode();
+        return 31 * result + format.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return format + " profile '" + profile + "' on " + hostUrl;
+    }
+}
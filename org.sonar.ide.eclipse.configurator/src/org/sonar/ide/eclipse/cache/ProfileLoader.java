@@ -0,0 +1,265 @@
+package org.sonar.ide.eclipse.cache;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.configurator.metrics.Metrics;
+
+/**
+ * Coalesce profile export requests in front of the {@link ProfileCache}.
+ * <p>
+ * Concurrent requests for the same {@link ProfileKey} share a single
+ * download, and the result is reused by every request made during the same
+ * import session, so a reactor whose modules inherit the same sonar.profile
+ * and sonar.host.url loads each export once. Failures are reused as well, so
+ * an export missing on the host is requested once per session. The session
+ * is ended by {@link #endSession()} once the import is over; the session
+ * delay only bounds the sessions nobody ends.
+ * <p>
+ * Hosts failing to answer are remembered by a {@link HostCircuitBreaker}:
+ * while a host is unavailable, the last cached export is used without any
+ * network access. {@link ProfileLoaderListener}s are told when a host becomes
+ * unavailable and when a cached or snapshot export is served instead.
+ * <p>
+ * The {@link ProfileSnapshot} seeds a cold cache when the plug-in starts, so
+ * its exports are revalidated or served like any cached export. The snapshot
+ * itself is only read when the host is unavailable and the export could not
+ * be seeded.
+ *
+ * @author Pierre BRUNIN
+ *
+ */
+public class ProfileLoader {
+
+    /** Delay after which a loaded export or failure is forgotten, if the session was not ended. */
+    public static final long DEFAULT_SESSION = 30 * 1000L;
+
+    private final ProfileCache cache;
+
+    private final HostCircuitBreaker circuitBreaker;
+
+    private final long session;
+
+    private final ProfileSnapshot snapshot;
+
+    private final ConcurrentMap<ProfileKey, Flight> flights = new ConcurrentHashMap<ProfileKey, Flight>();
+
+    private final AtomicLong loads = new AtomicLong();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    private final List<ProfileLoaderListener> listeners = new CopyOnWriteArrayList<ProfileLoaderListener>();
+
+    public ProfileLoader(final ProfileCache cache) {
+        this(cache, new HostCircuitBreaker(), DEFAULT_SESSION);
+    }
+
+    public ProfileLoader(final ProfileCache cache, final HostCircuitBreaker circuitBreaker, final long session) {
+        this(cache, circuitBreaker, session, ProfileSnapshot.EMPTY);
+    }
+
+    public ProfileLoader(final ProfileCache cache, final HostCircuitBreaker circuitBreaker, final long session,
+            final ProfileSnapshot snapshot) {
+        this.cache = cache;
+        this.circuitBreaker = circuitBreaker;
+        this.session = session;
+        this.snapshot = snapshot;
+    }
+
+    public ProfileCache getCache() {
+        return cache;
+    }
+
+    public HostCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public ProfileSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void addListener(final ProfileLoaderListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(final ProfileLoaderListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Return the export of a profile, sharing the download with any pending
+     * or recent request for the same key.
+     *
+     * @param key
+     *            the profile export
+     * @return cached entry, never null
+     * @throws IOException
+     *             if the export can't be loaded
+     */
+    public CachedProfile load(final ProfileKey key) throws IOException {
+        Flight flight = flights.get(key);
+        if (flight != null && flight.isExpired(System.currentTimeMillis())) {
+            flights.remove(key, flight);
+            flight = null;
+        }
+        if (flight == null) {
+            final Flight created = new Flight(key);
+            flight = flights.putIfAbsent(key, created);
+            if (flight == null) {
+                loads.incrementAndGet();
+                Metrics.miss(Metrics.SONAR_PROFILE_LOADER);
+                created.run();
+                flight = created;
+            } else {
+                coalesced.incrementAndGet();
+                Metrics.hit(Metrics.SONAR_PROFILE_LOADER);
+            }
+        } else {
+            coalesced.incrementAndGet();
+            Metrics.hit(Metrics.SONAR_PROFILE_LOADER);
+        }
+        return flight.getProfile();
+    }
+
+    /**
+     * Load an export from the cache unless its host is known to be
+     * unavailable.
+     */
+    private CachedProfile loadFromCache(final ProfileKey key) throws IOException {
+        final String host = key.getHostUrl();
+        if (!circuitBreaker.allowRequest(host)) {
+            return fallback(key, new HostUnavailableException(key));
+        }
+        try {
+            final CachedProfile profile = cache.get(key);
+            circuitBreaker.recordSuccess(host);
+            return profile;
+        } catch (final UnexpectedResponseException e) {
+            if (!e.isServerError()) {
+                // the host is fine, the export does not exist
+                circuitBreaker.recordSuccess(host);
+                throw e;
+            }
+            recordFailure(key, e);
+            return fallback(key, e);
+        } catch (final IOException e) {
+            recordFailure(key, e);
+            return fallback(key, e);
+        }
+    }
+
+    private void recordFailure(final ProfileKey key, final IOException cause) {
+        if (circuitBreaker.recordFailure(key.getHostUrl())) {
+            for (final ProfileLoaderListener listener : listeners) {
+                listener.hostUnavailable(key, cause);
+            }
+        }
+    }
+
+    /* use last cached or seeded export when the host is not available, or the snapshot if seeding failed */
+    private CachedProfile fallback(final ProfileKey key, final IOException cause) throws IOException {
+        final CachedProfile cached = cache.getCached(key);
+        if (cached != null) {
+            fallbacks.incrementAndGet();
+            for (final ProfileLoaderListener listener : listeners) {
+                listener.cachedProfileServed(cached, cause);
+            }
+            return cached;
+        }
+        final CachedProfile snapshotted = snapshot.get(key);
+        if (snapshotted == null) {
+            throw cause;
+        }
+        fallbacks.incrementAndGet();
+        for (final ProfileLoaderListener listener : listeners) {
+            listener.snapshotProfileServed(snapshotted, cause);
+        }
+        return snapshotted;
+    }
+
+    /**
+     * Forget loaded exports and failures, next requests go through the cache
+     * again.
+     */
+    public void endSession() {
+        flights.clear();
+    }
+
+    /**
+     * Number of requests which triggered a cache lookup.
+     */
+    public long getLoadCount() {
+        return loads.get();
+    }
+
+    /**
+     * Number of requests served by a pending or recent load.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * Number of requests served by a cached or snapshot export because the
+     * host was unavailable.
+     */
+    public long getFallbackCount() {
+        return fallbacks.get();
+    }
+
+    /**
+     * A single load of a profile export.
+     */
+    private class Flight extends FutureTask<CachedProfile> {
+
+        private final ProfileKey key;
+
+        private volatile long completedAt = Long.MAX_VALUE;
+
+        Flight(final ProfileKey key) {
+            super(new Callable<CachedProfile>() {
+                public CachedProfile call() throws IOException {
+                    return loadFromCache(key);
+                }
+            });
+            this.key = key;
+        }
+
+        @Override
+        protected void done() {
+            completedAt = System.currentTimeMillis();
+        }
+
+        boolean isExpired(final long now) {
+            return now - completedAt > session;
+        }
+
+        CachedProfile getProfile() throws IOException {
+            try {
+                return get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while loading " + key);
+            } catch (final ExecutionException e) {
+                // failures are kept until the session ends, like loaded exports
+                final Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+}
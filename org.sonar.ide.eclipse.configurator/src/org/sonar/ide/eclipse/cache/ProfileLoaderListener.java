@@ -0,0 +1,38 @@
+package org.sonar.ide.eclipse.cache;
+
+import java.io.IOException;
+
+/**
+ * Notified by the {@link ProfileLoader} when a sonar host fails, so the user
+ * knows the rules in use may be out of date.
+ * <p>
+ * Called from the thread loading the export.
+ *
+ * @author Pierre BRUNIN
+ *
+ */
+public interface ProfileLoaderListener {
+
+    /**
+     * The {@link HostCircuitBreaker} opened the circuit of a host: its exports
+     * are served from the cache until the cool-down has elapsed.
+     *
+     * @param key
+     *            the export whose load opened the circuit
+     * @param cause
+     *            the last failure
+     */
+    void hostUnavailable(ProfileKey key, IOException cause);
+
+    /**
+     * The last cached export was served because its host failed or is
+     * unavailable.
+     */
+    void cachedProfileServed(CachedProfile profile, IOException cause);
+
+    /**
+     * The snapshot export was served because its host failed or is
+     * unavailable and the export was never cached.
+     */
+    void snapshotProfileServed(CachedProfile profile, IOException cause);
+}
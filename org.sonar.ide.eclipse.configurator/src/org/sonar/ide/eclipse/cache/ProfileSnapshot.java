@@ -0,0 +1,232 @@
+package org.sonar.ide.eclipse.cache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.configurator.metrics.Metrics;
+
+/**
+ * Read-only tier of profile exports, loaded from a snapshot archive built
+ * where the sonar hosts are reachable.
+ * <p>
+ * The archive is a zip holding a {@value #MANIFEST} manifest and one entry
+ * per export. The manifest gives the format version, and for each export its
+ * sonar.host.url, sonar.profile, format, entry name and SHA-1, with the ETag
+ * and Last-Modified returned by the host when known. The exports of a
+ * snapshot seed a cold {@link ProfileCache} as stale entries: a reachable
+ * host revalidates them, an unavailable host lets them be served without
+ * waiting for a download. An export downloaded from the host supersedes the
+ * snapshot.
+ *
+ * @author Pierre BRUNIN
+ *
+ */
+public final class ProfileSnapshot {
+
+    /** Version of the archive format written by this class. */
+    public static final int VERSION = 1;
+
+    public static final String MANIFEST = "snapshot.properties";
+
+    /** Snapshot without any export. */
+    public static final ProfileSnapshot EMPTY = new ProfileSnapshot(Collections
+            .<ProfileKey, CachedProfile> emptyMap());
+
+    private static final String VERSION_PROPERTY = "version";
+
+    private static final String CREATED_PROPERTY = "created";
+
+    private static final String ENTRIES_PROPERTY = "entries";
+
+    private static final String ENTRY_PREFIX = "entry.";
+
+    private static final String DATA_SUFFIX = ".xml";
+
+    private final Map<ProfileKey, CachedProfile> profiles;
+
+    private ProfileSnapshot(final Map<ProfileKey, CachedProfile> profiles) {
+        this.profiles = profiles;
+    }
+
+    /**
+     * Return the export of a profile, or null if it is not in the snapshot.
+     */
+    public CachedProfile get(final ProfileKey key) {
+        if (profiles.isEmpty()) {
+            return null;
+        }
+        final CachedProfile profile = profiles.get(key);
+        if (profile == null) {
+            Metrics.miss(Metrics.SONAR_PROFILE_SNAPSHOT);
+        } else {
+            Metrics.hit(Metrics.SONAR_PROFILE_SNAPSHOT);
+        }
+        return profile;
+    }
+
+    public Collection<CachedProfile> getProfiles() {
+        return Collections.unmodifiableCollection(profiles.values());
+    }
+
+    public int size() {
+        return profiles.size();
+    }
+
+    /**
+     * Extract a snapshot archive.
+     *
+     * @param archive
+     *            the snapshot archive
+     * @param directory
+     *            directory the exports are extracted in, its previous content
+     *            is removed
+     * @throws IOException
+     *             if the archive can't be read, has an unknown version, or an
+     *             export does not match its SHA-1
+     */
+    public static ProfileSnapshot read(final File archive, final File directory) throws IOException {
+        clear(directory);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create snapshot directory " + directory);
+        }
+        Properties manifest = null;
+        final Map<String, String> hashes = new HashMap<String, String>();
+        final ZipInputStream inputStream = new ZipInputStream(new FileInputStream(archive));
+        try {
+            ZipEntry entry;
+            while ((entry = inputStream.getNextEntry()) != null) {
+                if (MANIFEST.equals(entry.getName())) {
+                    manifest = new Properties();
+                    manifest.load(inputStream);
+                } else if (!entry.isDirectory()) {
+                    hashes.put(entry.getName(), extract(inputStream, new File(directory, toFileName(entry
+                            .getName()))));
+                }
+            }
+        } finally {
+            inputStream.close();
+        }
+        if (manifest == null) {
+            throw new IOException(archive + " has no " + MANIFEST);
+        }
+        final String version = manifest.getProperty(VERSION_PROPERTY);
+        if (!String.valueOf(VERSION).equals(version)) {
+            throw new IOException(archive + " has unsupported version " + version);
+        }
+
+        final long created = Long.parseLong(manifest.getProperty(CREATED_PROPERTY, "0"));
+        final int entries = Integer.parseInt(manifest.getProperty(ENTRIES_PROPERTY, "0"));
+        final Map<ProfileKey, CachedProfile> profiles = new HashMap<ProfileKey, CachedProfile>();
+        for (int i = 0; i < entries; i++) {
+            final String prefix = ENTRY_PREFIX + i + ".";
+            final ProfileKey key = new ProfileKey(manifest.getProperty(prefix + "host"), manifest
+                    .getProperty(prefix + "profile"), manifest.getProperty(prefix + "format"));
+            final String name = manifest.getProperty(prefix + "file");
+            final String hash = manifest.getProperty(prefix + "sha1");
+            if (hash == null || !hash.equals(hashes.get(name))) {
+                throw new IOException("Content of " + key + " in " + archive + " does not match its SHA-1");
+            }
+            final long lastModified = Long.parseLong(manifest.getProperty(prefix + "lastModified", "0"));
+            profiles.put(key, new CachedProfile(key, new File(directory, toFileName(name)), manifest
+                    .getProperty(prefix + "etag"), lastModified, created, hash));
+        }
+        return new ProfileSnapshot(Collections.unmodifiableMap(profiles));
+    }
+
+    /**
+     * Write a snapshot archive of profile exports, usually loaded through a
+     * {@link ProfileCache}.
+     */
+    public static void write(final File archive, final Collection<CachedProfile> profiles) throws IOException {
+        final Properties manifest = new Properties();
+        manifest.setProperty(VERSION_PROPERTY, String.valueOf(VERSION));
+        manifest.setProperty(CREATED_PROPERTY, String.valueOf(System.currentTimeMillis()));
+        manifest.setProperty(ENTRIES_PROPERTY, String.valueOf(profiles.size()));
+        final ZipOutputStream outputStream = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            int i = 0;
+            for (final CachedProfile profile : profiles) {
+                final ProfileKey key = profile.getKey();
+                final String name = "profiles/" + key.getFileName() + DATA_SUFFIX;
+                final String prefix = ENTRY_PREFIX + i++ + ".";
+                manifest.setProperty(prefix + "host", key.getHostUrl());
+                manifest.setProperty(prefix + "profile", key.getProfile());
+                manifest.setProperty(prefix + "format", key.getFormat());
+                manifest.setProperty(prefix + "file", name);
+                manifest.setProperty(prefix + "sha1", profile.getHash());
+                if (profile.getEtag() != null) {
+                    manifest.setProperty(prefix + "etag", profile.getEtag());
+                }
+                if (profile.getLastModified() > 0) {
+                    manifest.setProperty(prefix + "lastModified", String.valueOf(profile.getLastModified()));
+                }
+                outputStream.putNextEntry(new ZipEntry(name));
+                final InputStream inputStream = new FileInputStream(profile.getFile());
+                try {
+                    copy(inputStream, outputStream);
+                } finally {
+                    inputStream.close();
+                }
+                outputStream.closeEntry();
+            }
+            outputStream.putNextEntry(new ZipEntry(MANIFEST));
+            manifest.store(outputStream, "Sonar profile snapshot");
+            outputStream.closeEntry();
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    /* copy the current zip entry to a file, return its SHA-1 */
+    private static String extract(final InputStream inputStream, final File file) throws IOException {
+        final MessageDigest digest = Hashes.newDigest();
+        final OutputStream outputStream = new FileOutputStream(file);
+        try {
+            copy(new DigestInputStream(inputStream, digest), outputStream);
+        } finally {
+            outputStream.close();
+        }
+        return Hashes.toHex(digest.digest());
+    }
+
+    private static void copy(final InputStream inputStream, final OutputStream outputStream) throws IOException {
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+    }
+
+    /* entries are extracted flat, named after the last segment */
+    private static String toFileName(final String entryName) {
+        return entryName.substring(entryName.lastIndexOf('/') + 1);
+    }
+
+    private static void clear(final File directory) {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ProfileSnapshot" + profiles.keySet();
+    }
+}
@@ -0,0 +1,33 @@
+package org.sonar.ide.eclipse.cache;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * The sonar server answered, but not with the profile export.
+ *
+ * @author Pierre BRUNIN
+ *
+ */
+public class UnexpectedResponseException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    public UnexpectedResponseException(final int status, final URL url) {
+        super("Unexpected response " + status + " for " + url);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Return true if the server itself is failing, rather than the request.
+     */
+    public boolean isServerError() {
+        return status >= 500;
+    }
+}
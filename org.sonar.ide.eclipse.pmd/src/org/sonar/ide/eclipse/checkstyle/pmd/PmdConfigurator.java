@@ -1,74 +1,92 @@
 package org.sonar.ide.eclipse.checkstyle.pmd;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URI;
-import java.net.URL;
 
 import net.sourceforge.pmd.eclipse.plugin.PMDPlugin;
 import net.sourceforge.pmd.eclipse.runtime.builder.PMDNature;
 import net.sourceforge.pmd.eclipse.runtime.properties.IProjectProperties;
 import net.sourceforge.pmd.eclipse.runtime.properties.PropertiesException;
 
+import org.eclipse.configurator.metrics.Metrics;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.maven.ide.eclipse.core.MavenLogger;
 import org.maven.ide.eclipse.project.MavenProjectChangedEvent;
 import org.maven.ide.eclipse.project.configurator.ProjectConfigurationRequest;
-import org.sonar.ide.eclipse.api.ISonarPlugin;
+import org.sonar.ide.eclipse.SonarFingerprint;
+import org.sonar.ide.eclipse.api.ISonarRuleSetPlugin;
+import org.sonar.ide.eclipse.api.SonarRuleSet;
+import org.sonar.ide.eclipse.pmd.Activator;
 
-public class PmdConfigurator implements ISonarPlugin {
+public class PmdConfigurator implements ISonarRuleSetPlugin {
+
+    /** shared, as configurators are created again when the extensions change */
+    private static final PmdDeltaScope DELTA_SCOPE = new PmdDeltaScope();
 
     @Override
-    public String configure(final ProjectConfigurationRequest projectConfigurationRequest, final URL url, final IProgressMonitor progressMonitor) {
-        try {
-            final InputStream inputStream = url.openStream();
-            storeRuleSet(projectConfigurationRequest.getProject(), inputStream);
-            MavenLogger.log("Configure pmd from ruleSet " + url);
-        } catch (final IOException e) {
-            throw new RuntimeException(e);
+    public String configure(final ProjectConfigurationRequest projectConfigurationRequest, final SonarRuleSet ruleSet, final IProgressMonitor progressMonitor) {
+        if (storeRuleSet(projectConfigurationRequest.getProject(), ruleSet)) {
+            MavenLogger.log("Configure pmd from ruleSet " + ruleSet);
         }
+        DELTA_SCOPE.configure(projectConfigurationRequest.getProject());
         return PMDNature.PMD_NATURE;
     }
 
+    /**
+     * PMD only depends on the ruleset: it is stored again when sonar plugin,
+     * sonar.profile or sonar.host.url changed, compile source roots changes are
+     * ignored. The changed files scope follows the delta preferences.
+     */
     @Override
-    public void mavenProjectChanged(final MavenProjectChangedEvent mavenProjectChangedEvent, final URL url, final IProgressMonitor progressMonitor) {
-
+    public void mavenProjectChanged(final MavenProjectChangedEvent mavenProjectChangedEvent, final SonarRuleSet ruleSet, final IProgressMonitor progressMonitor) {
+        final SonarFingerprint current = SonarFingerprint.of(mavenProjectChangedEvent.getMavenProject().getMavenProject());
+        final SonarFingerprint old = SonarFingerprint.of(mavenProjectChangedEvent.getOldMavenProject() == null ? null
+                : mavenProjectChangedEvent.getOldMavenProject().getMavenProject());
+        if (current.rulesChanged(old) && storeRuleSet(mavenProjectChangedEvent.getMavenProject().getProject(), ruleSet)) {
+            MavenLogger.log("Update pmd from ruleSet " + ruleSet);
+        }
+        DELTA_SCOPE.configure(mavenProjectChangedEvent.getMavenProject().getProject());
     }
 
     /**
-     * Update rules with inputstreams.
+     * Point the project PMD configuration to the shared copy of the rules and
+     * enable PMD. Projects using identical rules share the same file and the
+     * same parsed rules, and are left alone when already configured.
      * 
-     * @param inputStream
+     * @param ruleSet
      *            rules
-     * @return instance of rules
+     * @return true if PMD configuration was updated
      */
-    protected void storeRuleSet(final IProject project, final InputStream inputStream) {
-        final byte[] buffer = new byte[1024];
+    protected boolean storeRuleSet(final IProject project, final SonarRuleSet ruleSet) {
+        final long start = Metrics.start();
         try {
-            final URI uri = URI.create(project.getLocationURI() + "/.ruleset");
-            final FileWriter fileWriter = new FileWriter(new File(uri));
-            try {
-                int i = 0;
-                while ((i = inputStream.read(buffer)) != -1) {
-                    fileWriter.write(new String(buffer, 0, i));
-                }
-            } finally {
-                fileWriter.flush();
-                fileWriter.close();
-            }
+            final RuleSetStore ruleSetStore = Activator.getDefault().getRuleSetStore();
+            final String ruleSetFile = ruleSetStore.store(ruleSet).getAbsolutePath();
             final IProjectProperties projectProperties = PMDPlugin.getDefault().getPropertiesManager().loadProjectProperties(project);
+            if (projectProperties.isPmdEnabled() && projectProperties.isRuleSetStoredInProject()
+                    && ruleSetFile.equals(projectProperties.getRuleSetFile())) {
+                // file name is the content hash, rules are identical
+                return false;
+            }
+            final String previousFile = projectProperties.getRuleSetFile();
             projectProperties.setPmdEnabled(true);
-            projectProperties.setRuleSetFile(uri.getPath());
-            projectProperties.setNeedRebuild(true);
+            projectProperties.setRuleSetFile(ruleSetFile);
             projectProperties.setRuleSetStoredInProject(true);
+            projectProperties.setProjectRuleSet(ruleSetStore.getRuleSet(ruleSet));
+            projectProperties.setNeedRebuild(true);
             PMDPlugin.getDefault().getPropertiesManager().storeProjectProperties(projectProperties);
+            Metrics.rebuild(Metrics.PMD_BUILDER);
+            if (previousFile != null && !previousFile.equals(ruleSetFile)) {
+                // the previous ruleset may not be used anymore
+                Activator.getDefault().getRuleSetStoreCleaner().schedule(RuleSetStoreCleaner.DELAY);
+            }
+            return true;
         } catch (final PropertiesException e) {
             throw new RuntimeException(e);
         } catch (final IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            Metrics.stop(Metrics.PMD_STORE_RULESET, start);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+package org.sonar.ide.eclipse.checkstyle.pmd;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+
+import net.sourceforge.pmd.eclipse.plugin.PMDPlugin;
+import net.sourceforge.pmd.eclipse.runtime.properties.IProjectProperties;
+import net.sourceforge.pmd.eclipse.runtime.properties.PropertiesException;
+
+import org.eclipse.configurator.delta.DeltaScope;
+import org.eclipse.configurator.delta.DeltaScopeTracker;
+import org.eclipse.configurator.delta.IDeltaScopeListener;
+import org.eclipse.configurator.metrics.Metrics;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.ui.IWorkingSet;
+import org.eclipse.ui.IWorkingSetManager;
+import org.eclipse.ui.PlatformUI;
+import org.maven.ide.eclipse.core.MavenLogger;
+
+/**
+ * Restrict PMD to the files changed against the git base ref, through a
+ * working set following the commits. Enabled by the delta scope preferences.
+ * <p>
+ * Working sets belong to the workbench: they are updated in the display
+ * thread, and all files are checked when there is no workbench.
+ *
+ * @author Pierre BRUNIN
+ */
+public class PmdDeltaScope implements IDeltaScopeListener {
+
+    private static final String WORKING_SET_PREFIX = "PMD changes ";
+
+    /**
+     * Start (or stop, when the delta scope is disabled) restricting PMD to
+     * the changed files of a project.
+     */
+    public void configure(final IProject project) {
+        final DeltaScopeTracker tracker = DeltaScope.getTracker();
+        if (DeltaScope.isEnabled() && PlatformUI.isWorkbenchRunning()) {
+            try {
+                changedFilesUpdated(project, tracker.track(project, DeltaScope.getBaseRef(), this));
+                return;
+            } catch (final IOException e) {
+                MavenLogger.log("Failed to read files changed in " + project.getName() + ", all files are checked", e);
+            }
+        }
+        tracker.untrack(project, this);
+        changedFilesUpdated(project, null);
+    }
+
+    /**
+     * Update the PMD working set of the project, or remove it if all files
+     * are checked.
+     */
+    public void changedFilesUpdated(final IProject project, final SortedSet<String> changedFiles) {
+        if (changedFiles == null) {
+            updateProjectProperties(project, null);
+        } else if (PlatformUI.isWorkbenchRunning()) {
+            PlatformUI.getWorkbench().getDisplay().asyncExec(new Runnable() {
+                public void run() {
+                    if (project.isAccessible()) {
+                        updateProjectProperties(project, changedFiles);
+                    }
+                }
+            });
+        }
+    }
+
+    private void updateProjectProperties(final IProject project, final SortedSet<String> changedFiles) {
+        try {
+            final IProjectProperties projectProperties = PMDPlugin.getDefault().getPropertiesManager()
+                    .loadProjectProperties(project);
+            final IWorkingSet workingSet = changedFiles == null ? null : updateWorkingSet(project, changedFiles);
+            if (workingSet == null && projectProperties.getProjectWorkingSet() == null) {
+                // all files already checked
+                return;
+            }
+            projectProperties.setProjectWorkingSet(workingSet);
+            projectProperties.setNeedRebuild(true);
+            PMDPlugin.getDefault().getPropertiesManager().storeProjectProperties(projectProperties);
+            Metrics.rebuild(Metrics.PMD_BUILDER);
+        } catch (final PropertiesException e) {
+            MavenLogger.log("Failed to update PMD working set of " + project.getName(), e);
+        }
+    }
+
+    private IWorkingSet updateWorkingSet(final IProject project, final SortedSet<String> changedFiles) {
+        final List<IAdaptable> elements = new ArrayList<IAdaptable>();
+        for (final String changedFile : changedFiles) {
+            if (changedFile.endsWith(".java")) {
+                elements.add(project.getFile(changedFile));
+            }
+        }
+        final IWorkingSetManager manager = PlatformUI.getWorkbench().getWorkingSetManager();
+        final String name = WORKING_SET_PREFIX + project.getName();
+        IWorkingSet workingSet = manager.getWorkingSet(name);
+        if (workingSet == null) {
+            workingSet = manager.createWorkingSet(name, elements.toArray(new IAdaptable[elements.size()]));
+            manager.addWorkingSet(workingSet);
+        } else {
+            workingSet.setElements(elements.toArray(new IAdaptable[elements.size()]));
+        }
+        return workingSet;
+    }
+}
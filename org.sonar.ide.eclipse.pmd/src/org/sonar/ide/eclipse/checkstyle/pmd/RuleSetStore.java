@@ -0,0 +1,174 @@
+package org.sonar.ide.eclipse.checkstyle.pmd;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import net.sourceforge.pmd.RuleSet;
+import net.sourceforge.pmd.RuleSetFactory;
+
+import org.eclipse.configurator.metrics.Metrics;
+import org.sonar.ide.eclipse.api.SonarRuleSet;
+
+/**
+ * Workspace store of the PMD rulesets exported by sonar.
+ * <p>
+ * Rulesets are stored once per content hash and shared by every project
+ * using them. A stored file is never modified: its name is the hash of its
+ * content. Files no project references anymore are deleted after a delay.
+ * <p>
+ * Parsed rulesets are kept in memory by content hash, so a profile is parsed
+ * once. Each project gets its own {@link RuleSet} holding the parsed rules,
+ * so the include and exclude patterns PMD sets on a project ruleset don't
+ * leak to the others.
+ * 
+ * @author Pierre BRUNIN
+ */
+public class RuleSetStore {
+
+    /** Number of parsed rulesets kept in memory. */
+    public static final int MAX_PARSED_RULESETS = 16;
+
+    /** Delay before deleting the stored files no project references. */
+    public static final long UNREFERENCED_DELAY = 10 * 60 * 1000L;
+
+    private static final String SUFFIX = ".xml";
+
+    private final File directory;
+
+    private final Map<String, RuleSet> parsed = new LinkedHashMap<String, RuleSet>(MAX_PARSED_RULESETS, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, RuleSet> eldest) {
+            return size() > MAX_PARSED_RULESETS;
+        }
+    };
+
+    public RuleSetStore(final File directory) {
+        this.directory = directory;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Return the shared file holding the ruleset content, writing it if
+     * missing. Concurrent calls for the same content may both write it, the
+     * first rename wins and the content is the same.
+     */
+    public File store(final SonarRuleSet ruleSet) throws IOException {
+        final File file = new File(directory, ruleSet.getHash() + SUFFIX);
+        if (file.isFile()) {
+            Metrics.hit(Metrics.PMD_RULESET_STORE);
+            // last use, an unreferenced file is kept for the delay
+            file.setLastModified(System.currentTimeMillis());
+            return file;
+        }
+        Metrics.miss(Metrics.PMD_RULESET_STORE);
+        // created concurrently by another configuration if mkdirs fails
+        if (!directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Unable to create ruleset directory " + directory);
+        }
+        copy(ruleSet.getFile(), file);
+        return file;
+    }
+
+    /**
+     * Return a ruleset owned by the caller, holding the rules of the stored
+     * ruleset. The content is parsed only once per hash.
+     */
+    public RuleSet getRuleSet(final SonarRuleSet ruleSet) throws IOException {
+        final RuleSet shared = getParsedRuleSet(ruleSet);
+        final RuleSet copy = new RuleSet();
+        copy.setName(shared.getName());
+        copy.setDescription(shared.getDescription());
+        copy.setFileName(shared.getFileName());
+        copy.addRuleSet(shared);
+        copy.addExcludePatterns(shared.getExcludePatterns());
+        copy.addIncludePatterns(shared.getIncludePatterns());
+        return copy;
+    }
+
+    private synchronized RuleSet getParsedRuleSet(final SonarRuleSet ruleSet) throws IOException {
+        RuleSet parsedRuleSet = parsed.get(ruleSet.getHash());
+        if (parsedRuleSet == null) {
+            final InputStream inputStream = ruleSet.openStream();
+            try {
+                parsedRuleSet = new RuleSetFactory().createRuleSet(inputStream);
+            } finally {
+                inputStream.close();
+            }
+            parsed.put(ruleSet.getHash(), parsedRuleSet);
+        }
+        return parsedRuleSet;
+    }
+
+    /**
+     * Delete the stored files, and temporary files left by a crash, which are
+     * not referenced and were not used for {@link #UNREFERENCED_DELAY}.
+     * 
+     * @param referenced
+     *            names of the stored files still referenced by projects
+     * @return the number of deleted files
+     */
+    public int deleteUnreferenced(final Set<String> referenced) {
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        final long now = System.currentTimeMillis();
+        int deleted = 0;
+        for (final File file : files) {
+            if (!referenced.contains(file.getName()) && now - file.lastModified() > UNREFERENCED_DELAY
+                    && file.delete()) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Copy bytes of source into target through a unique temporary file, so
+     * target is never seen half written. Target is never replaced: if it
+     * appeared meanwhile, it was written by a concurrent copy of the same
+     * content.
+     */
+    private void copy(final File source, final File target) throws IOException {
+        final File temp = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+        try {
+            final FileChannel in = new FileInputStream(source).getChannel();
+            try {
+                final FileChannel out = new FileOutputStream(temp).getChannel();
+                try {
+                    final long size = in.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                    Metrics.addBytes(Metrics.PMD_RULESET_BYTES, size);
+                    out.force(false);
+                } finally {
+                    out.close();
+                }
+            } finally {
+                in.close();
+            }
+            if (!temp.renameTo(target) && !target.isFile()) {
+                throw new IOException("Failed to write " + target);
+            }
+        } finally {
+            if (temp.exists()) {
+                temp.delete();
+            }
+        }
+    }
+}
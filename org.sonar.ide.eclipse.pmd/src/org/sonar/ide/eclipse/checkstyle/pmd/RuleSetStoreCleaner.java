@@ -0,0 +1,72 @@
+package org.sonar.ide.eclipse.checkstyle.pmd;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import net.sourceforge.pmd.eclipse.plugin.PMDPlugin;
+import net.sourceforge.pmd.eclipse.runtime.builder.PMDNature;
+import net.sourceforge.pmd.eclipse.runtime.properties.PropertiesException;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.maven.ide.eclipse.core.MavenLogger;
+
+/**
+ * Delete the rulesets of the {@link RuleSetStore} no PMD project references
+ * anymore.
+ * <p>
+ * Scheduled when a project leaves a stored ruleset, with a delay so a
+ * reactor moving to a new profile revision is scanned once.
+ * 
+ * @author Pierre BRUNIN
+ */
+public class RuleSetStoreCleaner extends Job {
+
+    /** Delay between the last request and the scan of the projects. */
+    public static final long DELAY = 60 * 1000L;
+
+    private final RuleSetStore ruleSetStore;
+
+    public RuleSetStoreCleaner(final RuleSetStore ruleSetStore) {
+        super("Clean PMD rulesets");
+        this.ruleSetStore = ruleSetStore;
+        setSystem(true);
+        setPriority(DECORATE);
+    }
+
+    @Override
+    protected IStatus run(final IProgressMonitor monitor) {
+        final File directory = ruleSetStore.getDirectory().getAbsoluteFile();
+        final Set<String> referenced = new HashSet<String>();
+        for (final IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+            if (monitor.isCanceled()) {
+                return Status.CANCEL_STATUS;
+            }
+            try {
+                if (!project.isAccessible() || !project.hasNature(PMDNature.PMD_NATURE)) {
+                    continue;
+                }
+                final String ruleSetFile = PMDPlugin.getDefault().getPropertiesManager().loadProjectProperties(
+                        project).getRuleSetFile();
+                if (ruleSetFile != null && directory.equals(new File(ruleSetFile).getParentFile())) {
+                    referenced.add(new File(ruleSetFile).getName());
+                }
+            } catch (final CoreException e) {
+                // keep everything rather than deleting a ruleset in use
+                MavenLogger.log("Failed to read the PMD configuration of " + project.getName(), e);
+                return Status.OK_STATUS;
+            } catch (final PropertiesException e) {
+                MavenLogger.log("Failed to read the PMD configuration of " + project.getName(), e);
+                return Status.OK_STATUS;
+            }
+        }
+        ruleSetStore.deleteUnreferenced(referenced);
+        return Status.OK_STATUS;
+    }
+}
@@ -2,6 +2,8 @@ package org.sonar.ide.eclipse.pmd;
 
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
+import org.sonar.ide.eclipse.checkstyle.pmd.RuleSetStore;
+import org.sonar.ide.eclipse.checkstyle.pmd.RuleSetStoreCleaner;
 
 /**
  * The activator class controls the plug-in life cycle
@@ -13,6 +15,10 @@ public class Activator extends AbstractUIPlugin {
 
 	// The shared instance
 	private static Activator plugin;
+
+	private RuleSetStore ruleSetStore;
+
+	private RuleSetStoreCleaner ruleSetStoreCleaner;
 	
 	/**
 	 * The constructor
@@ -27,6 +33,8 @@ public class Activator extends AbstractUIPlugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		ruleSetStore = new RuleSetStore(getStateLocation().append("rulesets").toFile());
+		ruleSetStoreCleaner = new RuleSetStoreCleaner(ruleSetStore);
 	}
 
 	/*
@@ -34,6 +42,9 @@ public class Activator extends AbstractUIPlugin {
 	 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		ruleSetStoreCleaner.cancel();
+		ruleSetStoreCleaner = null;
+		ruleSetStore = null;
 		plugin = null;
 		super.stop(context);
 	}
@@ -47,4 +58,22 @@ public class Activator extends AbstractUIPlugin {
 		return plugin;
 	}
 
+	/**
+	 * Returns the workspace store of sonar PMD rulesets
+	 *
+	 * @return the ruleset store
+	 */
+	public RuleSetStore getRuleSetStore() {
+		return ruleSetStore;
+	}
+
+	/**
+	 * Returns the job deleting the stored rulesets no project uses
+	 *
+	 * @return the ruleset store cleaner
+	 */
+	public RuleSetStoreCleaner getRuleSetStoreCleaner() {
+		return ruleSetStoreCleaner;
+	}
+
 }